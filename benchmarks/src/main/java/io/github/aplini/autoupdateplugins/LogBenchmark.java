@@ -0,0 +1,56 @@
+package io.github.aplini.autoupdateplugins;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// log(): 每条日志都会读取 logLevel 配置并写入 logList
+// 不输出到控制台, 只比较日志等级判断与 logList 的开销. 位于引擎的包中以便调用 isLogEnabled
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogBenchmark {
+
+    private Config config;
+    private Set<String> cachedLevels;
+    private List<String> logList;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> map = Map.of("logLevel", List.of("MARK", "INFO", "WARN", "NET_WARN"));
+        config = new Config(path -> Config.lookup(map, path));
+        cachedLevels = new HashSet<>(config.getStringList("logLevel"));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLogList() {
+        logList = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    // 插件中的实现: 每次调用时读取配置
+    @Benchmark
+    public boolean configLookup() {
+        boolean enabled = UpdateEngine.isLogEnabled(config, UpdateEngine.logLevel.DEBUG);
+        logList.add("§8[Fixture.jar] 正在检查更新...");
+        return enabled;
+    }
+
+    // 对照: 加载配置时缓存日志等级
+    @Benchmark
+    public boolean cachedLookup() {
+        boolean enabled = cachedLevels.contains("DEBUG");
+        logList.add("§8[Fixture.jar] 正在检查更新...");
+        return enabled;
+    }
+
+    // 多个更新项目并行写入 logList
+    @Benchmark
+    @Threads(8)
+    public boolean configLookupContended() {
+        return configLookup();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.aplini.autoupdateplugins;
+
+import io.github.aplini.autoupdateplugins.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// getFileUrl 中解析 API 响应的部分, 使用 fixtures 中记录的响应
+// 直接调用引擎中的解析方法, 位于引擎的包中以便访问这些方法
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolverParseBenchmark {
+
+    private String githubLatest;
+    private String githubReleases;
+    private String modrinth;
+    private String jenkins;
+
+    @Setup
+    public void setup() {
+        githubLatest = Fixtures.json("github-latest.json");
+        githubReleases = Fixtures.json("github-releases.json");
+        modrinth = Fixtures.json("modrinth-versions.json");
+        jenkins = Fixtures.json("jenkins-build.json");
+    }
+
+    // GitHub: releases/latest
+    @Benchmark
+    public Map<?, ?> githubLatest() {
+        return UpdateEngine.parseGitHubAsset(githubLatest, false, "ViaVersion-[0-9.]+\\.jar");
+    }
+
+    // GitHub: getPreRelease 时读取所有发布中的第一个
+    @Benchmark
+    public Map<?, ?> githubReleases() {
+        return UpdateEngine.parseGitHubAsset(githubReleases, true, "ViaVersion-[0-9.]+\\.jar");
+    }
+
+    // Modrinth: 按 loader, 游戏版本与版本类型筛选
+    @Benchmark
+    public Map<?, ?> modrinth() {
+        return UpdateEngine.parseModrinthFile(modrinth, "paper", "1.20.1", "release", "LuckPerms-Paper-.*\\.jar");
+    }
+
+    // Jenkins: lastSuccessfulBuild/api/json
+    @Benchmark
+    public Map<?, ?> jenkins() {
+        return UpdateEngine.parseJenkinsArtifact(jenkins, "ViaBackwards-[0-9.]+-SNAPSHOT\\.jar");
+    }
+}
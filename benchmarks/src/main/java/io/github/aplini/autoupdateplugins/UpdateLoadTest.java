@@ -0,0 +1,322 @@
+package io.github.aplini.autoupdateplugins;
+
+import io.github.aplini.autoupdateplugins.benchmarks.MockUpstream;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+// 端到端负载测试: 使用测试平台运行 UpdateEngine, 对本地模拟的上游运行完整的更新周期
+// Bukkit 与 Velocity 使用同一个引擎, 结果适用于两个平台. 位于引擎的包中以便读取 state, metrics 与 stats
+//
+// 引擎会在工作目录中读写 ./plugins/AutoUpdatePlugins/temp.yml, 测试在子进程中以临时目录为工作目录运行, 不会修改当前目录:
+//   java -cp benchmarks/target/benchmarks.jar io.github.aplini.autoupdateplugins.UpdateLoadTest [选项]
+//
+// 选项:
+//   --entries=500        list 中的项目数量
+//   --cycles=1           连续运行的次数, 之后的运行会使用 temp.yml 中的记录
+//   --latency=50         每个响应的基础延迟 (毫秒)
+//   --jitter=25          额外的随机延迟 (毫秒)
+//   --bandwidth=0        每个响应的传输速度 (KiB/s), 0 为不限制
+//   --fail-rate=0        返回 503 的请求比例
+//   --rate-limit=0       返回 429 的请求比例
+//   --large-every=0      每隔多少个项目使用一个约 10MB 的文件
+//   --seed=1
+//   --players=0          测试平台报告的在线玩家数量, 用于 bandwidth.profiles 中的 minPlayers
+//   --mspt=-1            测试平台报告的 MSPT, 用于 bandwidth.mspt
+//   --timeout=600        单次运行的最长时间 (秒)
+//   --set=路径=值         覆盖插件配置, 值按 YAML 解析, 可重复. 例如串行: --set=parallelism=1 --set=virtualThreads=false
+//   下载限速例如: --bandwidth=0 --large-every=10 --set=bandwidth.limit=2048
+//   --label=名称          写入 CSV 的名称
+//   --csv=文件            将每次运行的结果追加到 CSV 文件
+public final class UpdateLoadTest {
+    // 子进程中设置为 true
+    private static final String CHILD = "aup.loadtest.child";
+
+    public static void main(String[] args) throws Exception {
+        if (!Boolean.getBoolean(CHILD)) {
+            System.exit(fork(args));
+        }
+        Map<String, String> opts = new HashMap<>();
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid option: " + arg);
+            }
+            String[] kv = arg.substring(2).split("=", 2);
+            if (kv[0].equals("set")) {
+                String[] set = kv[1].split("=", 2);
+                overrides.put(set[0], set.length > 1 ? new Yaml().load(set[1]) : null);
+            } else {
+                opts.put(kv[0], kv[1]);
+            }
+        }
+        int entries = Integer.parseInt(opts.getOrDefault("entries", "500"));
+        int cycles = Integer.parseInt(opts.getOrDefault("cycles", "1"));
+        long timeout = Long.parseLong(opts.getOrDefault("timeout", "600")) * 1000;
+        String label = opts.getOrDefault("label", "default");
+
+        MockUpstream.Options options = new MockUpstream.Options();
+        options.latencyMillis = Long.parseLong(opts.getOrDefault("latency", "50"));
+        options.jitterMillis = Long.parseLong(opts.getOrDefault("jitter", "25"));
+        options.bandwidthKiB = Long.parseLong(opts.getOrDefault("bandwidth", "0"));
+        options.failRate = Double.parseDouble(opts.getOrDefault("fail-rate", "0"));
+        options.rateLimitRate = Double.parseDouble(opts.getOrDefault("rate-limit", "0"));
+        options.largeEvery = Integer.parseInt(opts.getOrDefault("large-every", "0"));
+        options.seed = Long.parseLong(opts.getOrDefault("seed", "1"));
+
+        // 工作目录是 fork() 创建的空目录, 每次测试从空的 temp.yml 开始
+        Path work = Path.of("").toAbsolutePath();
+
+        int exit = 0;
+        try (MockUpstream upstream = new MockUpstream(options, Files.createDirectories(work.resolve("fixtures")))) {
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("list", upstream.list(entries));
+            config.put("updatePath", dir(work, "update"));
+            config.put("tempPath", dir(work, "temp"));
+            config.put("filePath", dir(work, "plugins"));
+            config.put("proxy.type", "HTTP");
+            config.put("proxy.host", "127.0.0.1");
+            config.put("proxy.port", upstream.getProxyPort());
+            config.put("proxy.reqApi", true);
+            config.put("proxy.reqDownload", true);
+            config.put("sslVerify", false);
+            config.put("fetchErrRetryDelay", 1);
+            config.put("logLevel", List.of("WARN"));
+            config.putAll(overrides);
+            UpdateEngine engine = new UpdateEngine(new TestPlatform(config, Files.createDirectories(work.resolve("data")),
+                    Integer.parseInt(opts.getOrDefault("players", "0")), Double.parseDouble(opts.getOrDefault("mspt", "-1"))));
+            engine.enable();
+            Platform.Sender console = new Platform.Sender() {
+                public void sendMessage(String text) {}
+                public boolean isPlayer() {
+                    return false;
+                }
+            };
+
+            System.out.println("[AUP-LoadTest] " + entries + " entries, latency " + options.latencyMillis + "+" + options.jitterMillis
+                    + " ms, bandwidth " + (options.bandwidthKiB > 0 ? options.bandwidthKiB + " KiB/s" : "unlimited")
+                    + ", fail " + options.failRate + ", 429 " + options.rateLimitRate + ", overrides " + overrides);
+
+            for (int cycle = 1; cycle <= cycles; cycle++) {
+                Map<String, Double> before = parse(engine.metrics.render(engine.stats));
+                long upstreamBefore = upstream.getRequests();
+                long connectionsBefore = upstream.getConnections();
+                System.gc();
+
+                Sampler sampler = new Sampler();
+                sampler.start();
+                long start = System.nanoTime();
+                engine.command(new String[]{"update"}, console);
+                // recordRun 之后等待 finishRun 释放运行权
+                while (parse(engine.metrics.render(engine.stats)).getOrDefault("aup_runs_total", 0.0) <= before.getOrDefault("aup_runs_total", 0.0)
+                        || !engine.state.isIdle()) {
+                    if ((System.nanoTime() - start) / 1_000_000 > timeout) {
+                        throw new IllegalStateException("Cycle " + cycle + " did not finish within " + timeout / 1000 + "s");
+                    }
+                    Thread.sleep(10);
+                }
+                long nanos = System.nanoTime() - start;
+                sampler.interrupt();
+                sampler.join();
+
+                Map<String, Double> after = parse(engine.metrics.render(engine.stats));
+                Result r = new Result(label, cycle, entries, nanos,
+                        delta(before, after, "aup_updates_total"),
+                        delta(before, after, "aup_failures_total"),
+                        delta(before, after, "aup_requests_total"),
+                        upstream.getRequests() - upstreamBefore,
+                        upstream.getConnections() - connectionsBefore,
+                        delta(before, after, "aup_downloaded_bytes_total"),
+                        delta(before, after, "aup_retry_wait_seconds_total"),
+                        delta(before, after, "aup_bandwidth_wait_seconds_total"),
+                        sampler.peakHeap, sampler.peakThreads, sampler.peakJvmThreads);
+                System.out.println("[AUP-LoadTest] " + r);
+                if (opts.containsKey("csv")) r.append(new File(opts.get("csv")));
+            }
+            System.out.println("[AUP-LoadTest] upstream requests by host: " + upstream.getRequestsByHost());
+        } catch (Exception e) {
+            e.printStackTrace();
+            exit = 1;
+        }
+        // Timer 线程不是守护线程
+        System.exit(exit);
+    }
+
+    // 使用相同的 JVM 参数与类路径启动子进程, 工作目录为新建的临时目录, 结束后删除该目录
+    private static int fork(String[] args) throws IOException, InterruptedException {
+        Path work = Files.createTempDirectory("aup-loadtest");
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-D" + CHILD + "=true");
+            command.add("-cp");
+            // 类路径与 CSV 文件中的相对路径按当前目录解析
+            StringJoiner classPath = new StringJoiner(File.pathSeparator);
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                classPath.add(Path.of(entry).toAbsolutePath().toString());
+            }
+            command.add(classPath.toString());
+            command.add(UpdateLoadTest.class.getName());
+            for (String arg : args) {
+                command.add(arg.startsWith("--csv=") ? "--csv=" + Path.of(arg.substring(6)).toAbsolutePath() : arg);
+            }
+            return new ProcessBuilder(command).directory(work.toFile()).inheritIO().start().waitFor();
+        } finally {
+            delete(work);
+        }
+    }
+
+    // 测试平台: 配置只包含命令行中的项目, 其余使用引擎中的默认值. 键可以是点号路径, 也可以是嵌套的 YAML 值
+    private static final class TestPlatform implements Platform {
+        private final Map<String, Object> config;
+        private final Path dataFolder;
+        private final int players;
+        private final double mspt;
+
+        TestPlatform(Map<String, Object> config, Path dataFolder, int players, double mspt) {
+            this.config = config;
+            this.dataFolder = dataFolder;
+            this.players = players;
+            this.mspt = mspt;
+        }
+
+        @Override
+        public void reloadConfig() {}
+
+        @Override
+        public Object get(String path) {
+            Object value = config.get(path);
+            return value != null ? value : Config.lookup(config, path);
+        }
+
+        @Override
+        public Path dataFolder() {
+            return dataFolder;
+        }
+
+        @Override
+        public String serverVersion() {
+            return "1.20.4";
+        }
+
+        @Override
+        public int onlinePlayers() {
+            return players;
+        }
+
+        @Override
+        public double mspt() {
+            return mspt;
+        }
+
+        @Override
+        public void info(String text) {
+            System.out.println("[AUP] " + text);
+        }
+
+        @Override
+        public void warn(String text) {
+            System.out.println("[AUP] " + text);
+        }
+    }
+
+    // 一次运行的结果
+    record Result(String label, int cycle, int entries, long nanos, long updated, long failed,
+                  long requests, long upstreamRequests, long connections, long bytes, long retryWaitSeconds,
+                  long bandwidthWaitSeconds, long peakHeap, int peakThreads, int peakJvmThreads) {
+
+        static final String HEADER = "label,cycle,entries,seconds,updated,failed,requests,upstream_requests,connections,"
+                + "downloaded_mib,retry_wait_seconds,bandwidth_wait_seconds,peak_heap_mib,peak_threads,peak_jvm_threads";
+
+        @Override
+        public String toString() {
+            return String.format("cycle %d: %.2f s, updated %d, failed %d, requests %d (upstream %d, connections %d), "
+                            + "downloaded %.1f MiB (%.1f MiB/s), retry wait %d s, bandwidth wait %d s, peak heap %.1f MiB, peak threads %d (jvm %d)",
+                    cycle, nanos / 1e9, updated, failed, requests, upstreamRequests, connections,
+                    bytes / 1048576.0, bytes / 1048576.0 / (nanos / 1e9), retryWaitSeconds, bandwidthWaitSeconds, peakHeap / 1048576.0, peakThreads, peakJvmThreads);
+        }
+
+        void append(File csv) throws IOException {
+            boolean header = !csv.exists();
+            try (PrintWriter out = new PrintWriter(new FileWriter(csv, true))) {
+                if (header) out.println(HEADER);
+                out.println(String.join(",", label, String.valueOf(cycle), String.valueOf(entries),
+                        String.format(Locale.ROOT, "%.3f", nanos / 1e9), String.valueOf(updated), String.valueOf(failed),
+                        String.valueOf(requests), String.valueOf(upstreamRequests), String.valueOf(connections),
+                        String.format(Locale.ROOT, "%.2f", bytes / 1048576.0), String.valueOf(retryWaitSeconds), String.valueOf(bandwidthWaitSeconds),
+                        String.format(Locale.ROOT, "%.1f", peakHeap / 1048576.0), String.valueOf(peakThreads), String.valueOf(peakJvmThreads)));
+            }
+        }
+    }
+
+    // 定时采样堆内存与线程数量, 插件线程数量不包含模拟上游使用的线程
+    private static final class Sampler extends Thread {
+        volatile long peakHeap = 0;
+        volatile int peakThreads = 0;
+        volatile int peakJvmThreads = 0;
+
+        Sampler() {
+            super("AUP-Mock-Sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            while (!isInterrupted()) {
+                peakHeap = Math.max(peakHeap, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+                int all = 0, own = 0;
+                for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+                    if (info == null) continue;
+                    all++;
+                    if (!info.getThreadName().startsWith("AUP-Mock") && !info.getThreadName().startsWith("MockWebServer")) own++;
+                }
+                peakThreads = Math.max(peakThreads, own);
+                peakJvmThreads = Math.max(peakJvmThreads, all);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // 读取 Prometheus 文本中没有标签的指标
+    private static Map<String, Double> parse(String text) {
+        Map<String, Double> map = new HashMap<>();
+        for (String line : text.split("\n")) {
+            if (line.startsWith("#") || line.contains("{")) continue;
+            String[] kv = line.split(" ", 2);
+            if (kv.length == 2) map.put(kv[0], Double.parseDouble(kv[1]));
+        }
+        return map;
+    }
+
+    private static long delta(Map<String, Double> before, Map<String, Double> after, String name) {
+        return Math.round(after.getOrDefault(name, 0.0) - before.getOrDefault(name, 0.0));
+    }
+
+    private static String dir(Path work, String name) throws IOException {
+        return Files.createDirectories(work.resolve(name)).toAbsolutePath() + "/";
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+}
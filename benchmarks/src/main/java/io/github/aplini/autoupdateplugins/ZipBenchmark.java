@@ -0,0 +1,63 @@
+package io.github.aplini.autoupdateplugins;
+
+import io.github.aplini.autoupdateplugins.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// isJARFileIntact 与使用 zipGet 解压单个文件
+// 直接调用引擎中的方法, 位于引擎的包中以便访问这些方法
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipBenchmark {
+
+    @Param({"small", "large"})
+    public String size;
+
+    private Path dir;
+    private Path jar;
+    private Path zip;
+    private Path out;
+    private BufferPool pool;
+    private final Pattern zipGet = Pattern.compile("Fixture-Paper-.*\\.jar");
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("aup-bench-zip");
+        zip = Fixtures.releaseZip(dir, size);
+        jar = Fixtures.pluginJar(dir, size);
+        out = dir.resolve("out.jar");
+        pool = new BufferPool(4, 512 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(dir);
+    }
+
+    // isJARFileIntact: 打开 jar 并读取中央目录
+    @Benchmark
+    public boolean jarIntact() {
+        return UpdateEngine.jarIntact(jar);
+    }
+
+    // unzip: 通过中央目录找到匹配的文件
+    @Benchmark
+    public boolean unzipSelective() throws IOException {
+        return UpdateEngine.unzipEntry(zip, zipGet, out, pool);
+    }
+
+    // zipStream: 顺序读取数据流, 跳过不匹配的文件
+    @Benchmark
+    public boolean unzipStreaming() throws IOException {
+        return UpdateEngine.unzipStream(Files.newInputStream(zip), zipGet, out, pool);
+    }
+}
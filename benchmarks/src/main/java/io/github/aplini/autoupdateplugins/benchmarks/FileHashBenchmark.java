@@ -0,0 +1,65 @@
+package io.github.aplini.autoupdateplugins.benchmarks;
+
+import io.github.aplini.autoupdateplugins.BufferPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+// fileHash: 一次性读入 (旧实现), BufferPool 分块读取 (当前实现), 内存映射
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileHashBenchmark {
+
+    @Param({"small", "large"})
+    public String size;
+
+    private Path dir;
+    private Path jar;
+    private BufferPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("aup-bench-hash");
+        jar = Fixtures.pluginJar(dir, size);
+        pool = new BufferPool(4, 512 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(dir);
+    }
+
+    @Benchmark
+    public String readAllBytes() throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        return new BigInteger(1, md.digest(Files.readAllBytes(jar))).toString(16);
+    }
+
+    @Benchmark
+    public String streaming() throws IOException, NoSuchAlgorithmException {
+        return pool.md5(jar);
+    }
+
+    @Benchmark
+    public String mmap() throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        try (FileChannel in = FileChannel.open(jar, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            md.update(buffer);
+        }
+        return new BigInteger(1, md.digest()).toString(16);
+    }
+}
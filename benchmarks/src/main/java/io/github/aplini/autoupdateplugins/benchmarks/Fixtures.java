@@ -0,0 +1,107 @@
+package io.github.aplini.autoupdateplugins.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// 基准测试使用的文件
+// jar 在运行时以固定种子生成, 内容接近真实插件: 大量小 class 文件与 plugin.yml
+public final class Fixtures {
+    private Fixtures() {}
+
+    // 插件大小: small 约 300KB (如 Chat2QQ), large 约 8MB (如 ViaVersion)
+    public static Path pluginJar(Path dir, String size) throws IOException {
+        return size.equals("large")
+                ? pluginJar(dir.resolve("large.jar"), 3000, 6000)
+                : pluginJar(dir.resolve("small.jar"), 200, 3000);
+    }
+
+    static Path pluginJar(Path file, int classes, int classSize) throws IOException {
+        Random random = new Random(classes * 31L + classSize);
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(file), manifest)) {
+            out.putNextEntry(new JarEntry("plugin.yml"));
+            out.write("name: Fixture\nversion: 1.0.0\nmain: fixture.Main\napi-version: '1.20'\n".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            for (int i = 0; i < classes; i++) {
+                out.putNextEntry(new JarEntry("fixture/pkg" + (i % 40) + "/Class" + i + ".class"));
+                out.write(classBytes(random, classSize));
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    // 发布压缩包, 匹配 zipGet 的文件不在第一个位置
+    public static Path releaseZip(Path dir, String size) throws IOException {
+        Path file = dir.resolve("release-" + size + ".zip");
+        Path target = pluginJar(dir, size);
+        Path other = pluginJar(dir.resolve("other.jar"), 400, 3000);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+            putText(out, "README.md", "# Fixture\n".repeat(200));
+            putFile(out, "Fixture-Velocity-1.0.0.jar", other);
+            putFile(out, "Fixture-Fabric-1.0.0.jar", other);
+            putFile(out, "Fixture-Paper-1.0.0.jar", target);
+            putText(out, "LICENSE", "MIT License\n".repeat(100));
+        }
+        return file;
+    }
+
+    // 读取 fixtures 目录中记录的 API 响应
+    public static String json(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) throw new IOException("fixture not found: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    // 一半为重复的常量池字符串, 一半为随机字节, 压缩率与真实 class 文件相近
+    private static byte[] classBytes(Random random, int size) {
+        byte[] bytes = new byte[size];
+        byte[] text = "Ljava/lang/String;Lorg/bukkit/plugin/java/JavaPlugin;".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < size / 2; i++) {
+            bytes[i] = text[i % text.length];
+        }
+        byte[] noise = new byte[size - size / 2];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, bytes, size / 2, noise.length);
+        return bytes;
+    }
+
+    private static void putText(ZipOutputStream out, String name, String text) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    private static void putFile(ZipOutputStream out, String name, Path file) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        try (InputStream in = Files.newInputStream(file)) {
+            in.transferTo(out);
+        }
+        out.closeEntry();
+    }
+}
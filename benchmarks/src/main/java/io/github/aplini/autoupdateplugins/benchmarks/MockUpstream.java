@@ -0,0 +1,295 @@
+package io.github.aplini.autoupdateplugins.benchmarks;
+
+import com.google.gson.Gson;
+import mockwebserver3.Dispatcher;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.Protocol;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+import okio.Buffer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 本地模拟的 GitHub, Modrinth, Jenkins, Spiget 与 CDN, 用于离线运行完整的更新周期
+// 插件通过已有的 proxy 配置 (HTTP CONNECT) 连接到这里, 所有域名共用一个自签名证书, 需要 sslVerify: false
+public final class MockUpstream implements Closeable {
+
+    // 证书中包含的域名, 请求按 Host 请求头分发
+    static final List<String> HOSTS = List.of(
+            "github.com", "api.github.com", "api.modrinth.com", "ci.mock.dev", "api.spiget.org", "cdn.mock.dev");
+
+    private static final Pattern GITHUB_DOWNLOAD = Pattern.compile("^/mock/(Plugin(\\d+))/releases/download/[^/]+/[^/]+$");
+    private static final Pattern GITHUB_API = Pattern.compile("^/repos/mock/(Plugin(\\d+))/releases(/latest)?$");
+    private static final Pattern MODRINTH_API = Pattern.compile("^/v2/project/(Plugin(\\d+))/version$");
+    private static final Pattern JENKINS_API = Pattern.compile("^/job/(Plugin(\\d+))/lastSuccessfulBuild/api/json$");
+    private static final Pattern JENKINS_ARTIFACT = Pattern.compile("^/job/(Plugin(\\d+))/lastSuccessfulBuild/artifact/.+$");
+    private static final Pattern SPIGET_DOWNLOAD = Pattern.compile("^/v2/resources/(\\d+)/download$");
+    private static final Pattern CDN_FILE = Pattern.compile("^/files/(Plugin(\\d+))\\.jar$");
+    private static final int SPIGET_ID = 10000;
+
+    public static final class Options {
+        public long latencyMillis = 50;     // 每个响应的基础延迟
+        public long jitterMillis = 25;      // 额外的随机延迟 (0 ~ jitter)
+        public long bandwidthKiB = 0;       // 每个响应的传输速度 (KiB/s), 0 为不限制
+        public double failRate = 0;         // 返回 503 的请求比例
+        public double rateLimitRate = 0;    // 返回 429 的请求比例
+        public int largeEvery = 0;          // 每隔多少个项目使用一个大文件, 0 为全部使用小文件
+        public long seed = 1;
+    }
+
+    private final Options options;
+    private final Random random;
+    private final byte[] smallJar;
+    private final byte[] largeJar;
+    private final MockWebServer server = new MockWebServer();
+    private final ServerSocket proxy;
+    private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+    private final AtomicLong connections = new AtomicLong();
+
+    public MockUpstream(Options options, Path dir) throws IOException {
+        this.options = options;
+        this.random = new Random(options.seed);
+        smallJar = Files.readAllBytes(Fixtures.pluginJar(dir, "small"));
+        largeJar = Files.readAllBytes(Fixtures.pluginJar(dir, "large"));
+
+        HeldCertificate.Builder certificate = new HeldCertificate.Builder().commonName("AUP Mock Upstream");
+        for (String host : HOSTS) {
+            certificate.addSubjectAlternativeName(host);
+        }
+        HandshakeCertificates certificates = new HandshakeCertificates.Builder()
+                .heldCertificate(certificate.build())
+                .build();
+        server.useHttps(certificates.sslSocketFactory());
+        server.setProtocols(List.of(Protocol.HTTP_1_1));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+        server.start(InetAddress.getLoopbackAddress(), 0);
+
+        proxy = new ServerSocket(0, 256, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "AUP-Mock-Proxy");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // 插件的 proxy.port
+    public int getProxyPort() {
+        return proxy.getLocalPort();
+    }
+
+    // 生成 config.yml 中的 list, 依次使用 GitHub, Modrinth, Jenkins 与 Spigot 链接
+    public List<Map<String, Object>> list(int entries) {
+        List<Map<String, Object>> list = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            String name = "Plugin" + i;
+            Map<String, Object> li = new LinkedHashMap<>();
+            li.put("file", name + ".jar");
+            switch (i % 4) {
+                case 0 -> li.put("url", "https://github.com/mock/" + name);
+                case 1 -> {
+                    li.put("url", "https://modrinth.com/plugin/" + name);
+                    li.put("loader", "paper");
+                }
+                case 2 -> li.put("url", "https://ci.mock.dev/job/" + name);
+                default -> li.put("url", "https://www.spigotmc.org/resources/" + name.toLowerCase() + "." + (SPIGET_ID + i));
+            }
+            list.add(li);
+        }
+        return list;
+    }
+
+    // 已处理的 HTTP 请求数量 (不含 CONNECT)
+    public long getRequests() {
+        return requests.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public Map<String, Long> getRequestsByHost() {
+        Map<String, Long> map = new TreeMap<>();
+        requests.forEach((host, count) -> map.put(host, count.get()));
+        return map;
+    }
+
+    // 通过代理建立的连接数量, 即 TLS 握手次数
+    public long getConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        proxy.close();
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        String host = request.getHeaders().get("Host");
+        host = host == null ? "" : host.replaceAll(":\\d+$", "");
+        String path = String.valueOf(request.getPath()).replaceAll("\\?.*$", "");
+        boolean head = "HEAD".equals(request.getMethod());
+        requests.computeIfAbsent(host, k -> new AtomicLong()).incrementAndGet();
+
+        MockResponse.Builder res = new MockResponse.Builder();
+        long delay = options.latencyMillis;
+        double roll;
+        synchronized (random) {
+            if (options.jitterMillis > 0) delay += random.nextInt((int) options.jitterMillis + 1);
+            roll = random.nextDouble();
+        }
+        res.headersDelay(delay, TimeUnit.MILLISECONDS);
+        if (options.bandwidthKiB > 0) {
+            res.throttleBody(options.bandwidthKiB * 1024 / 10, 100, TimeUnit.MILLISECONDS);
+        }
+
+        // 注入的失败
+        if (roll < options.failRate) {
+            return res.code(503).body("Service Unavailable").build();
+        }
+        if (roll < options.failRate + options.rateLimitRate) {
+            return res.code(429).setHeader("Retry-After", "1").body("Too Many Requests").build();
+        }
+
+        Matcher matcher;
+        switch (host) {
+            case "github.com" -> {
+                if ((matcher = GITHUB_DOWNLOAD.matcher(path)).matches()) {
+                    return redirect(res, matcher.group(1));
+                }
+            }
+            case "api.github.com" -> {
+                if ((matcher = GITHUB_API.matcher(path)).matches()) {
+                    Map<String, Object> release = githubRelease(matcher.group(1));
+                    return json(res, matcher.group(3) != null ? release : List.of(release));
+                }
+            }
+            case "api.modrinth.com" -> {
+                if ((matcher = MODRINTH_API.matcher(path)).matches()) {
+                    String name = matcher.group(1);
+                    return json(res, List.of(Map.of(
+                            "version_number", "1.0.0",
+                            "version_type", "release",
+                            "loaders", List.of("bukkit", "spigot", "paper"),
+                            "game_versions", List.of("1.20.4", "1.20.6", "1.21.1"),
+                            "files", List.of(Map.of(
+                                    "filename", name + "-1.0.0.jar",
+                                    "url", "https://cdn.mock.dev/files/" + name + ".jar")))));
+                }
+            }
+            case "ci.mock.dev" -> {
+                if ((matcher = JENKINS_API.matcher(path)).matches()) {
+                    String name = matcher.group(1);
+                    return json(res, Map.of(
+                            "number", 100,
+                            "artifacts", List.of(Map.of(
+                                    "fileName", name + "-1.0.0-SNAPSHOT.jar",
+                                    "relativePath", "build/libs/" + name + "-1.0.0-SNAPSHOT.jar"))));
+                }
+                if ((matcher = JENKINS_ARTIFACT.matcher(path)).matches()) {
+                    return file(res, Integer.parseInt(matcher.group(2)), head);
+                }
+            }
+            case "api.spiget.org" -> {
+                if ((matcher = SPIGET_DOWNLOAD.matcher(path)).matches()) {
+                    return redirect(res, "Plugin" + (Integer.parseInt(matcher.group(1)) - SPIGET_ID));
+                }
+            }
+            case "cdn.mock.dev" -> {
+                if ((matcher = CDN_FILE.matcher(path)).matches()) {
+                    return file(res, Integer.parseInt(matcher.group(2)), head);
+                }
+            }
+        }
+        return res.code(404).body("Not Found").build();
+    }
+
+    private Map<String, Object> githubRelease(String name) {
+        return Map.of(
+                "tag_name", "v1.0.0",
+                "prerelease", false,
+                "assets", List.of(Map.of(
+                        "name", name + "-1.0.0.jar",
+                        "browser_download_url", "https://github.com/mock/" + name + "/releases/download/v1.0.0/" + name + "-1.0.0.jar")));
+    }
+
+    private static MockResponse json(MockResponse.Builder res, Object body) {
+        return res.setHeader("Content-Type", "application/json; charset=utf-8")
+                .body(new Gson().toJson(body))
+                .build();
+    }
+
+    private static MockResponse redirect(MockResponse.Builder res, String name) {
+        return res.code(302).setHeader("Location", "https://cdn.mock.dev/files/" + name + ".jar").build();
+    }
+
+    private MockResponse file(MockResponse.Builder res, int index, boolean head) {
+        byte[] bytes = options.largeEvery > 0 && index % options.largeEvery == options.largeEvery - 1 ? largeJar : smallJar;
+        res.setHeader("Content-Type", "application/java-archive");
+        if (head) {
+            return res.setHeader("Content-Length", bytes.length).build();
+        }
+        return res.body(new Buffer().write(bytes)).build();
+    }
+
+    // 处理 CONNECT 请求并将连接转发到 MockWebServer, TLS 握手在转发后的连接中完成
+    private void accept() {
+        while (!proxy.isClosed()) {
+            Socket client;
+            try {
+                client = proxy.accept();
+            } catch (IOException e) {
+                return;
+            }
+            connections.incrementAndGet();
+            Thread tunnel = new Thread(() -> tunnel(client), "AUP-Mock-Tunnel");
+            tunnel.setDaemon(true);
+            tunnel.start();
+        }
+    }
+
+    private void tunnel(Socket client) {
+        try (client; Socket upstream = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            InputStream in = client.getInputStream();
+            if (!readHead(in).startsWith("CONNECT ")) return;
+            client.getOutputStream().write("HTTP/1.1 200 Connection established\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            client.getOutputStream().flush();
+            Thread back = new Thread(() -> pipe(upstream, client), "AUP-Mock-Tunnel");
+            back.setDaemon(true);
+            back.start();
+            pipe(client, upstream);
+            back.join();
+        } catch (IOException | InterruptedException ignored) {}
+    }
+
+    // 逐字节读取请求头, 避免读入之后的 TLS 数据
+    private static String readHead(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            sb.append((char) b);
+            if (sb.length() >= 4 && sb.lastIndexOf("\r\n\r\n") == sb.length() - 4) break;
+        }
+        return sb.toString();
+    }
+
+    private static void pipe(Socket from, Socket to) {
+        try {
+            from.getInputStream().transferTo(to.getOutputStream());
+            to.shutdownOutput();
+        } catch (IOException ignored) {}
+    }
+}
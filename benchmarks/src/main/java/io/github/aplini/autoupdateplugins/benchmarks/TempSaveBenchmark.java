@@ -0,0 +1,57 @@
+package io.github.aplini.autoupdateplugins.benchmarks;
+
+import io.github.aplini.autoupdateplugins.TempData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// saveDate(): 每次更新结束时保存 temp.yml
+// 每个项目记录的字段与 updateEntry 写入的相同
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TempSaveBenchmark {
+
+    @Param({"50", "500"})
+    public int entries;
+
+    private Path dir;
+    private TempData temp;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("aup-bench-temp");
+        temp = TempData.load(dir.resolve("temp.yml"));
+        for (int i = 0; i < entries; i++) {
+            String pPath = "previous." + ("Plugin" + i).hashCode();
+            temp.set(pPath + ".file", "Plugin" + i + ".jar");
+            temp.set(pPath + ".time", "2024-01-01 00:00:00");
+            temp.set(pPath + ".dUrl", "https://github.com/example/Plugin" + i + "/releases/download/v1.0." + i + "/Plugin" + i + ".jar");
+            temp.set(pPath + ".feature", "a" + Integer.toHexString(i * 7919) + "-" + (1024 * i));
+            temp.set(pPath + ".checked", 1_700_000_000L + i);
+            temp.set(pPath + ".interval", 14400L);
+            temp.set(pPath + ".changed", 1_699_000_000L + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(dir);
+    }
+
+    @Benchmark
+    public String saveToString() {
+        return temp.saveToString();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        temp.save();
+    }
+}
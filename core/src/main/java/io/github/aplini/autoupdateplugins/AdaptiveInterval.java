@@ -0,0 +1,43 @@
+package io.github.aplini.autoupdateplugins;
+
+// 根据每个项目的历史更新频率计算检查间隔 (秒)
+// 未发现更新时逐渐增加间隔, 发现更新时使用两次更新之间间隔的一半
+public final class AdaptiveInterval {
+    private final long base;        // 计时器的运行间隔, 也是最短的有效间隔
+    private final long min;
+    private final long max;
+    private final double backoff;
+
+    public AdaptiveInterval(long base, long min, long max, double backoff) {
+        this.base = Math.max(1, base);
+        this.min = Math.max(this.base, min);
+        this.max = Math.max(this.min, max);
+        this.backoff = Math.max(1.0, backoff);
+    }
+
+    // 是否需要在本轮检查
+    // 计时器与请求的时间存在少量偏差, 允许提前 1/10 个计时器间隔
+    public boolean isDue(long lastCheck, long interval, long now) {
+        if (lastCheck <= 0 || interval <= 0) {
+            return true;
+        }
+        return now - lastCheck + base / 10 >= interval;
+    }
+
+    // 本次检查未发现更新
+    public long unchanged(long interval) {
+        return clamp((long) (Math.max(interval, min) * backoff));
+    }
+
+    // 本次检查发现更新, lastChange 为上一次发现更新的时间, 未知时为 0
+    public long changed(long lastChange, long now) {
+        if (lastChange <= 0 || now <= lastChange) {
+            return min;
+        }
+        return clamp((now - lastChange) / 2);
+    }
+
+    private long clamp(long interval) {
+        return Math.max(min, Math.min(max, interval));
+    }
+}
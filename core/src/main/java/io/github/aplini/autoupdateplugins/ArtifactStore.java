@@ -0,0 +1,169 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+// 同一台机器上的多个服务器共用的下载缓存
+// objects/ 中的文件以 SHA-256 命名, index/ 中按下载链接与文件特征记录对应的哈希
+// 同一个下载链接同时只有一个进程下载, 其他进程等待后直接从 objects/ 创建硬链接
+public final class ArtifactStore {
+
+    private final Path objects;
+    private final Path index;
+    private final Path locks;
+    private final Path tmp;
+    private final BufferPool pool;
+    // FileLock 属于整个进程, 同一进程中的多个线程还需要使用本地锁
+    private final Map<String, Semaphore> local = new ConcurrentHashMap<>();
+
+    public ArtifactStore(Path root, BufferPool pool) throws IOException {
+        this.objects = Files.createDirectories(root.resolve("objects"));
+        this.index = Files.createDirectories(root.resolve("index"));
+        this.locks = Files.createDirectories(root.resolve("locks"));
+        this.tmp = Files.createDirectories(root.resolve("tmp"));
+        this.pool = pool;
+    }
+
+    // 由下载链接, 文件特征与解压方式生成的索引键
+    public static String key(String url, String feature, String variant) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((url + "\n" + feature + "\n" + variant).getBytes(StandardCharsets.UTF_8));
+            return hex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 获取一个索引键的锁, 在其他线程或进程释放前阻塞
+    public Lock lock(String key) throws IOException, InterruptedException {
+        Semaphore semaphore = local.computeIfAbsent(key, k -> new Semaphore(1));
+        semaphore.acquire();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(locks.resolve(key + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new Lock(semaphore, channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) channel.close();
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    // 将索引键对应的文件链接到 target 并返回文件的 SHA-256, 不存在时返回 null
+    public String fetch(String key, Path target) throws IOException {
+        Path entry = index.resolve(key);
+        if (!Files.exists(entry)) return null;
+        String hash = Files.readString(entry, StandardCharsets.UTF_8).trim();
+        Path object = object(hash);
+        if (!Files.isRegularFile(object)) return null;
+        Files.deleteIfExists(target);
+        link(object, target);
+        // 记录最后使用时间, 用于清理
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(object, now);
+        Files.setLastModifiedTime(entry, now);
+        return hash;
+    }
+
+    // 查找哈希对应的文件并记录使用时间, 不存在时返回 null
+    public Path find(String hash) {
+        Path object = object(hash);
+        try {
+            Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+            return object;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // 将下载完成的文件加入缓存, 返回文件的 SHA-256
+    public String put(String key, Path file) throws IOException, NoSuchAlgorithmException {
+        String hash = hex(pool.digest(file, "SHA-256"));
+        Path object = object(hash);
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            Path part = tmp.resolve(hash + "." + ProcessHandle.current().pid() + "." + Thread.currentThread().getId());
+            Files.deleteIfExists(part);
+            link(file, part);
+            Files.move(part, object, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path part = tmp.resolve(key + "." + ProcessHandle.current().pid() + "." + Thread.currentThread().getId());
+        Files.writeString(part, hash, StandardCharsets.UTF_8);
+        Files.move(part, index.resolve(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return hash;
+    }
+
+    // 删除超过 maxAge 毫秒未被使用的文件, 已链接到其他位置的文件不受影响
+    // locks/ 中的文件不清理: 锁文件的修改时间不会更新, 删除后其他进程可能锁住不同的文件, 导致同时下载
+    public int prune(long maxAge) throws IOException {
+        long expired = System.currentTimeMillis() - maxAge;
+        int removed = 0;
+        for (Path dir : new Path[]{index, objects, tmp}) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    try {
+                        if (Files.getLastModifiedTime(p).toMillis() < expired) {
+                            Files.delete(p);
+                            removed++;
+                        }
+                    } catch (IOException ignored) {} // 正在被其他进程使用
+                }
+            }
+        }
+        return removed;
+    }
+
+    private Path object(String hash) {
+        return objects.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    // 优先创建硬链接, 不支持时 (不同的磁盘分区或文件系统) 复制文件
+    // Java 没有提供 reflink 接口, 支持 reflink 的文件系统上仍然会完整复制
+    private static void link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return String.format("%0" + (bytes.length * 2) + "x", new BigInteger(1, bytes));
+    }
+
+    // 持有期间其他线程和进程无法下载同一个链接
+    public static final class Lock implements Closeable {
+        private final Semaphore semaphore;
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        private Lock(Semaphore semaphore, FileChannel channel, FileLock lock) {
+            this.semaphore = semaphore;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                lock.release();
+                channel.close();
+            } finally {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 所有下载共用的令牌桶限速, 桶的容量为 1 秒的流量
+// 读取数据后扣除令牌, 令牌不足时允许预支并等待, 同时进行的下载共享同一个速率
+public final class Bandwidth {
+    // 限速时单次读取的最大字节数, 避免一次等待过久
+    private static final int CHUNK = 64 * 1024;
+
+    private volatile long rate = 0;     // 字节/秒, 0 表示不限速
+    private double tokens = 0;
+    private long last = System.nanoTime();
+    // 因限速而等待的时间合计 (纳秒), 多个下载同时等待时分别计算
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    // 修改速率, 返回速率是否有变化
+    public synchronized boolean setRate(long bytesPerSecond) {
+        long r = Math.max(0, bytesPerSecond);
+        if (r == rate) {
+            return false;
+        }
+        long now = System.nanoTime();
+        refill(now);
+        // 从不限速切换到限速时桶是满的
+        tokens = rate == 0 ? r : Math.min(tokens, r);
+        rate = r;
+        return true;
+    }
+
+    public long getRate() {
+        return rate;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos.get();
+    }
+
+    // 扣除 n 个字节的令牌, 令牌不足时等待到预支的部分被补充
+    public void acquire(long n) throws InterruptedIOException {
+        long wait;
+        synchronized (this) {
+            if (rate <= 0) {
+                return;
+            }
+            refill(System.nanoTime());
+            tokens -= n;
+            if (tokens >= 0) {
+                return;
+            }
+            wait = (long) (-tokens * 1_000_000_000L / rate);
+        }
+        waitNanos.addAndGet(wait);
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void refill(long now) {
+        if (rate > 0) {
+            tokens = Math.min(rate, tokens + (now - last) * (double) rate / 1_000_000_000L);
+        }
+        last = now;
+    }
+
+    // 按当前速率读取数据流, 速率在读取过程中修改时立即生效
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) acquire(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, rate > 0 ? Math.min(len, CHUNK) : len);
+                if (n > 0) acquire(n);
+                return n;
+            }
+        };
+    }
+
+    // 当前时间 (一天中的第几分钟) 是否在 "HH:mm-HH:mm" 时间段内, 结束时间早于开始时间时表示跨过午夜
+    public static boolean inWindow(String window, int minute) {
+        String[] parts = window.trim().split("-", 2);
+        if (parts.length != 2) {
+            return false;
+        }
+        int start = minuteOf(parts[0]);
+        int end = minuteOf(parts[1]);
+        if (start < 0 || end < 0) {
+            return false;
+        }
+        return start <= end ? minute >= start && minute < end : minute >= start || minute < end;
+    }
+
+    // "HH:mm" 转换为一天中的第几分钟, 允许 24:00. 格式错误时返回 -1
+    private static int minuteOf(String time) {
+        String[] hm = time.trim().split(":", 2);
+        try {
+            int h = Integer.parseInt(hm[0].trim());
+            int m = hm.length > 1 ? Integer.parseInt(hm[1].trim()) : 0;
+            if (h < 0 || m < 0 || m > 59 || h * 60 + m > 24 * 60) {
+                return -1;
+            }
+            return h * 60 + m;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// 源节点与接收模式的 HTTP 端点共用的认证: 所有请求都需要 Authorization: Bearer <token>
+final class BearerAuth {
+    private BearerAuth() {}
+
+    // 启动端点前检查 token, 为空时不允许启动
+    static void require(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("token is required");
+        }
+    }
+
+    // 检查请求方法与令牌, 不通过时发送 405 或 401 并返回 false
+    static boolean accept(HttpExchange exchange, String method, String token) throws IOException {
+        if (!exchange.getRequestMethod().equals(method)) {
+            exchange.sendResponseHeaders(405, -1);
+            return false;
+        }
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        // 使用固定时间的比较, 避免通过响应时间猜测令牌
+        if (auth == null || !MessageDigest.isEqual(("Bearer " + token).getBytes(StandardCharsets.UTF_8), auth.getBytes(StandardCharsets.UTF_8))) {
+            exchange.sendResponseHeaders(401, -1);
+            return false;
+        }
+        return true;
+    }
+}
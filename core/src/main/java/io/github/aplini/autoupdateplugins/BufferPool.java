@@ -0,0 +1,103 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 可复用的直接内存缓冲区, 用于下载, 哈希计算和解压
+// 避免每次下载都分配大数组 (在 G1 中会成为 humongous 对象)
+public final class BufferPool {
+    private final ArrayBlockingQueue<ByteBuffer> pool;
+    private final int bufferSize;
+
+    private final AtomicInteger reused = new AtomicInteger();      // 本轮从池中取出的次数
+    private final AtomicInteger allocated = new AtomicInteger();   // 本轮新分配的缓冲区数量
+
+    public BufferPool(int size, int bufferSize) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, size));
+        this.bufferSize = bufferSize;
+    }
+
+    // 取出一个缓冲区, 池为空时分配新的缓冲区
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer != null) {
+            reused.incrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+        allocated.incrementAndGet();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    // 归还缓冲区, 池已满时直接丢弃
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) return;
+        buffer.clear();
+        pool.offer(buffer);
+    }
+
+    public int getReused() {
+        return reused.get();
+    }
+
+    public int getAllocated() {
+        return allocated.get();
+    }
+
+    // 在每一轮更新开始时清空统计
+    public void resetStats() {
+        reused.set(0);
+        allocated.set(0);
+    }
+
+    // 将输入流写入文件, 返回写入的字节数
+    public long transfer(InputStream in, Path target) throws IOException {
+        ByteBuffer buffer = acquire();
+        long total = 0;
+        try (ReadableByteChannel src = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (src.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    total += out.write(buffer);
+                }
+                buffer.clear();
+            }
+        } finally {
+            release(buffer);
+        }
+        return total;
+    }
+
+    // 计算文件 MD5, 分块读取而不是一次性读入整个文件
+    public String md5(Path file) throws IOException, NoSuchAlgorithmException {
+        return new BigInteger(1, digest(file, "MD5")).toString(16);
+    }
+
+    // 使用指定算法计算文件哈希, 如 SHA-1, SHA-256
+    public byte[] digest(Path file, String algorithm) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        ByteBuffer buffer = acquire();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            release(buffer);
+        }
+        return md.digest();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// 按点号路径读取配置, 取值方式与 Bukkit 的 ConfigurationSection 相同: 不存在或类型不匹配时返回默认值
+public final class Config {
+    private final Function<String, Object> source;
+
+    public Config(Function<String, Object> source) {
+        this.source = source;
+    }
+
+    public Object get(String path) {
+        return source.apply(path);
+    }
+
+    public String getString(String path, String def) {
+        Object v = get(path);
+        return v == null || v instanceof Map || v instanceof List ? def : String.valueOf(v);
+    }
+
+    public boolean getBoolean(String path, boolean def) {
+        Object v = get(path);
+        if (v instanceof Boolean b) return b;
+        if (v instanceof String s && (s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false"))) return Boolean.parseBoolean(s);
+        return def;
+    }
+
+    public int getInt(String path, int def) {
+        Object v = get(path);
+        if (v instanceof Number n) return n.intValue();
+        if (v instanceof String s) {
+            try {
+                return Integer.parseInt(s.trim());
+            } catch (NumberFormatException ignored) {}
+        }
+        return def;
+    }
+
+    public long getLong(String path, long def) {
+        Object v = get(path);
+        if (v instanceof Number n) return n.longValue();
+        if (v instanceof String s) {
+            try {
+                return Long.parseLong(s.trim());
+            } catch (NumberFormatException ignored) {}
+        }
+        return def;
+    }
+
+    public double getDouble(String path, double def) {
+        Object v = get(path);
+        if (v instanceof Number n) return n.doubleValue();
+        if (v instanceof String s) {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException ignored) {}
+        }
+        return def;
+    }
+
+    // 不存在时返回空列表
+    public List<String> getStringList(String path) {
+        List<String> list = new ArrayList<>();
+        if (get(path) instanceof List<?> values) {
+            for (Object v : values) {
+                if (v != null && !(v instanceof Map) && !(v instanceof List)) list.add(String.valueOf(v));
+            }
+        }
+        return list;
+    }
+
+    // 在 SnakeYAML 读取的嵌套 Map 中按点号路径查找
+    public static Object lookup(Map<?, ?> root, String path) {
+        if (root == null || path == null || path.isEmpty()) return null;
+        Object current = root;
+        for (String part : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map)) return null;
+            current = map.get(part);
+            if (current == null) return null;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+// 服务器卡顿时降低校验阶段 (zip 检查, 哈希, 解压) 的 CPU 占用
+// 每个任务开始前读取 MSPT, 超过阈值时先等待 MSPT 恢复 (最长 maxWait), 然后与其他降速的任务依次运行
+// MSPT 不可用 (返回负数) 或阈值为 0 时不做任何处理
+public final class CpuThrottle {
+    private final DoubleSupplier mspt;
+    private final double threshold;
+    private final long pauseMillis;
+    private final long maxWaitNanos;
+    // 降速时同时只运行一个任务
+    private final ReentrantLock serial = new ReentrantLock();
+
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public CpuThrottle(DoubleSupplier mspt, double threshold, long pauseMillis, long maxWaitSeconds) {
+        this.mspt = mspt;
+        this.threshold = threshold;
+        this.pauseMillis = Math.max(10, pauseMillis);
+        this.maxWaitNanos = Math.max(0, maxWaitSeconds) * 1_000_000_000L;
+    }
+
+    private boolean behind() {
+        return threshold > 0 && mspt.getAsDouble() > threshold;
+    }
+
+    // 包装一个阶段, stopped 返回 true 时不再等待
+    public <T> Pipeline.Step<T> wrap(Pipeline.Step<T> step, BooleanSupplier stopped) {
+        return item -> {
+            if (!behind()) {
+                return step.run(item);
+            }
+            throttled.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                while (System.nanoTime() - start < maxWaitNanos && !stopped.getAsBoolean() && behind()) {
+                    TimeUnit.MILLISECONDS.sleep(pauseMillis);
+                }
+                serial.lockInterruptibly();
+            } finally {
+                waitNanos.addAndGet(System.nanoTime() - start);
+            }
+            try {
+                return step.run(item);
+            } finally {
+                serial.unlock();
+            }
+        };
+    }
+
+    // 被降速的任务数量
+    public int getThrottled() {
+        return throttled.get();
+    }
+
+    // 降速任务的等待时间合计 (纳秒)
+    public long getWaitNanos() {
+        return waitNanos.get();
+    }
+}
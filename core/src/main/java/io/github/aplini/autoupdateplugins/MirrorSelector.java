@@ -0,0 +1,149 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// 镜像: 按规则将请求地址改写为多个候选地址 (例如 GitHub 代理前缀), 记录每个地址的延迟与失败
+// 记录在重载配置后保留, 规则不变时继续使用
+public final class MirrorSelector {
+
+    // resolver 为解析器名称 (不区分大小写), type 为 reqApi 或 reqDownload, 为空时匹配所有
+    // mirrors 为 match 的替换文本, 可以使用 $1 等分组. origin 表示原地址也参与选择
+    public record Rule(String resolver, String type, Pattern match, List<String> mirrors, boolean origin) {
+        String id() {
+            return resolver + "\0" + type + "\0" + match.pattern();
+        }
+    }
+
+    // 一个候选地址, key 用于记录延迟, name 用于显示
+    public record Candidate(String rule, String key, String name, String url) {}
+
+    private static final class Record {
+        volatile double latency = Double.NaN;   // 平滑后的延迟 (纳秒), 未知时为 NaN
+        volatile long failedAt = 0;             // 最后一次失败的时间 (毫秒)
+    }
+
+    private volatile List<Rule> rules = List.of();
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    // 每个规则最后一次比赛的时间 (毫秒)
+    private final Map<String, Long> raced = new ConcurrentHashMap<>();
+
+    public void setRules(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    // 第一个匹配的规则生成的所有候选地址, 没有匹配的规则时返回空列表
+    public List<Candidate> candidates(String resolver, String type, String url) {
+        for (Rule rule : rules) {
+            if (!rule.resolver().isEmpty() && !rule.resolver().equalsIgnoreCase(resolver)) continue;
+            if (!rule.type().isEmpty() && !rule.type().equals(type)) continue;
+            if (!rule.match().matcher(url).find()) continue;
+            List<Candidate> list = new ArrayList<>();
+            if (rule.origin()) {
+                list.add(new Candidate(rule.id(), key(rule, ""), "origin", url));
+            }
+            for (String mirror : rule.mirrors()) {
+                list.add(new Candidate(rule.id(), key(rule, mirror), mirror, rule.match().matcher(url).replaceFirst(mirror)));
+            }
+            return list;
+        }
+        return List.of();
+    }
+
+    // 记录的键: 规则 (解析器, 请求类型与正则表达式) 加上替换文本, 原地址的替换文本为空
+    private static String key(Rule rule, String mirror) {
+        return rule.id() + "\0" + mirror;
+    }
+
+    // 是否需要重新比赛: 有未记录延迟的地址, 或距离上一次比赛超过 interval
+    public boolean needsRace(List<Candidate> list, long intervalMillis) {
+        if (list.size() < 2) return false;
+        long last = raced.getOrDefault(list.get(0).rule(), 0L);
+        if (System.currentTimeMillis() - last >= intervalMillis) return true;
+        for (Candidate c : list) {
+            Record r = records.get(c.key());
+            if (r == null || Double.isNaN(r.latency) && r.failedAt == 0) return true;
+        }
+        return false;
+    }
+
+    public void markRaced(List<Candidate> list) {
+        if (!list.isEmpty()) raced.put(list.get(0).rule(), System.currentTimeMillis());
+    }
+
+    // 选择一个地址, 跳过在 cooldown 内失败过的地址 (都失败过时不跳过)
+    // byLatency 为 true 时选择延迟最低的地址, 否则按配置顺序选择
+    public Candidate pick(List<Candidate> list, boolean byLatency, long cooldownMillis) {
+        long now = System.currentTimeMillis();
+        List<Candidate> usable = new ArrayList<>();
+        for (Candidate c : list) {
+            Record r = records.get(c.key());
+            if (r == null || now - r.failedAt >= cooldownMillis) usable.add(c);
+        }
+        if (usable.isEmpty()) usable = list;
+        if (!byLatency) return usable.get(0);
+        // 未知的延迟排在最后, 相同时保持配置顺序
+        return usable.stream().min(Comparator.comparingDouble(c -> {
+            double l = latency(c);
+            return Double.isNaN(l) ? Double.MAX_VALUE : l;
+        })).orElse(usable.get(0));
+    }
+
+    // 一次成功的请求
+    public void success(Candidate c, long nanos) {
+        Record r = records.computeIfAbsent(c.key(), k -> new Record());
+        r.latency = Double.isNaN(r.latency) ? nanos : r.latency * 0.7 + nanos * 0.3;
+        r.failedAt = 0;
+    }
+
+    // 一次失败的请求
+    public void failure(Candidate c) {
+        records.computeIfAbsent(c.key(), k -> new Record()).failedAt = System.currentTimeMillis();
+    }
+
+    // 平滑后的延迟 (纳秒), 未知时为 NaN
+    public double latency(Candidate c) {
+        Record r = records.get(c.key());
+        return r == null ? Double.NaN : r.latency;
+    }
+
+    // 是否还有 cooldown 内没有失败过的地址
+    public boolean hasUsable(List<Candidate> list, long cooldownMillis) {
+        long now = System.currentTimeMillis();
+        for (Candidate c : list) {
+            Record r = records.get(c.key());
+            if (r == null || now - r.failedAt >= cooldownMillis) return true;
+        }
+        return false;
+    }
+
+    // 一个地址的状态, latency 为平滑后的延迟 (毫秒), 未知时为 -1
+    public record Status(String match, String mirror, long latency, boolean failed) {}
+
+    // 当前规则中所有已记录的地址
+    public List<Status> status(long cooldownMillis) {
+        List<Status> out = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Rule rule : rules) {
+            List<String> names = new ArrayList<>();
+            if (rule.origin()) names.add("");
+            names.addAll(rule.mirrors());
+            for (String name : names) {
+                Record r = records.get(key(rule, name));
+                if (r == null) continue;
+                out.add(new Status(rule.match().pattern(), name.isEmpty() ? "origin" : name,
+                        Double.isNaN(r.latency) ? -1 : Math.round(r.latency / 1_000_000),
+                        r.failedAt > 0 && now - r.failedAt < cooldownMillis));
+            }
+        }
+        return out;
+    }
+}
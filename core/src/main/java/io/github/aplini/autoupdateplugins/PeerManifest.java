@@ -0,0 +1,81 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 对等缓存的清单: 源节点解析并下载的每个项目对应的文件
+// 键由项目中影响解析结果的配置生成, 跟随节点中配置相同的项目才会使用源节点的结果
+public final class PeerManifest {
+
+    // 一个项目最后一次下载的文件
+    public static final class Entry {
+        public String file;
+        public String dUrl;
+        public String feature;
+        public String sha256;
+        public long size;
+        public long time;
+
+        public Entry() {}
+
+        public Entry(String file, String dUrl, String feature, String sha256, long size) {
+            this.file = file;
+            this.dUrl = dUrl;
+            this.feature = feature;
+            this.sha256 = sha256;
+            this.size = size;
+            this.time = System.currentTimeMillis() / 1000;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 由项目的 url, get, zipGet 等配置生成的键, version 需要是已替换 serverVersion 后的值
+    public static String key(String url, String get, String zipGet, String loader, String version, String versionType,
+                             boolean preRelease, boolean zipStream) {
+        return ArtifactStore.key(url, String.join("\n", get, zipGet, loader, version, versionType),
+                (preRelease ? "pre" : "") + (zipStream ? ":zipStream" : ""));
+    }
+
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public String toJson() {
+        return new Gson().toJson(this);
+    }
+
+    public static PeerManifest fromJson(String json) {
+        PeerManifest manifest = new Gson().fromJson(json, PeerManifest.class);
+        return manifest != null ? manifest : new PeerManifest();
+    }
+
+    // 读取源节点保存的清单, 文件不存在或损坏时返回空清单
+    public static PeerManifest load(Path file) {
+        try {
+            return fromJson(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return new PeerManifest();
+        }
+    }
+
+    public synchronized void save(Path file) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        Files.writeString(part, toJson(), StandardCharsets.UTF_8);
+        Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
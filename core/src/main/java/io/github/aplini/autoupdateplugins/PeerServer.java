@@ -0,0 +1,74 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// 源节点的 HTTP 端点: GET /manifest 返回清单, GET /artifacts/<sha256> 返回文件
+public final class PeerServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private PeerServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    // 跟随节点信任清单中的哈希, 因此必须设置 token, 所有请求都需要 Authorization: Bearer <token>
+    public static PeerServer start(String host, int port, String token, int threads,
+                                   Supplier<String> manifest, Function<String, Path> artifact) throws IOException {
+        BearerAuth.require(token);
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/manifest", exchange -> {
+            try (exchange) {
+                if (!BearerAuth.accept(exchange, "GET", token)) return;
+                byte[] bytes = manifest.get().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        });
+        server.createContext("/artifacts/", exchange -> {
+            try (exchange) {
+                if (!BearerAuth.accept(exchange, "GET", token)) return;
+                String hash = exchange.getRequestURI().getPath().substring("/artifacts/".length());
+                Path file = hash.matches("[0-9a-f]{64}") ? artifact.apply(hash) : null;
+                if (file == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, Files.size(file));
+                try (OutputStream out = exchange.getResponseBody()) {
+                    Files.copy(file, out);
+                }
+            }
+        });
+        // 跟随节点会同时下载多个文件
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "AUP-Peer");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.start();
+        return new PeerServer(server, executor);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,187 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 分阶段处理项目, 每个阶段拥有独立的有界队列与线程数量
+// 下一个阶段的队列已满时, 上一个阶段会等待 (例如下载快于验证时不会继续下载)
+public final class Pipeline<T> {
+
+    // 处理一个项目, 返回 true 时进入下一个阶段
+    public interface Step<T> {
+        boolean run(T item) throws Exception;
+    }
+
+    // 阶段中出现未处理的异常
+    public interface Failure<T> {
+        void accept(T item, Throwable e);
+    }
+
+    public final class Stage {
+        private final String name;
+        private final int workers;
+        private final ArrayBlockingQueue<T> queue;
+        private final ThreadFactory threads;
+        private final Step<T> step;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
+        private Stage next;
+
+        private Stage(String name, int workers, int queueSize, ThreadFactory threads, Step<T> step) {
+            this.name = name;
+            this.workers = Math.max(1, workers);
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+            this.threads = threads;
+            this.step = step;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public int getDepth() {
+            return queue.size();
+        }
+
+        public int getCapacity() {
+            return queue.size() + queue.remainingCapacity();
+        }
+
+        public int getActive() {
+            return active.get();
+        }
+
+        public int getProcessed() {
+            return processed.get();
+        }
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<Thread> running = new CopyOnWriteArrayList<>();
+    private final Failure<T> onError;
+    private volatile CountDownLatch remaining = new CountDownLatch(0);
+    private volatile boolean cancelled = false;
+
+    public Pipeline(Failure<T> onError) {
+        this.onError = onError;
+    }
+
+    public Pipeline<T> stage(String name, int workers, int queueSize, ThreadFactory threads, Step<T> step) {
+        Stage stage = new Stage(name, workers, queueSize, threads, step);
+        if (!stages.isEmpty()) {
+            stages.get(stages.size() - 1).next = stage;
+        }
+        stages.add(stage);
+        return this;
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // 处理所有项目并等待全部完成, 被取消时立即返回
+    public void run(List<T> items) throws InterruptedException {
+        remaining = new CountDownLatch(items.size());
+        if (cancelled) {
+            return;
+        }
+        for (Stage stage : stages) {
+            for (int i = 0; i < stage.workers; i++) {
+                Thread t = stage.threads.newThread(() -> work(stage));
+                running.add(t);
+                t.start();
+            }
+        }
+        try {
+            Stage first = stages.get(0);
+            for (T item : items) {
+                if (cancelled) {
+                    break;
+                }
+                first.queue.put(item);
+            }
+            remaining.await();
+        } finally {
+            for (Thread t : running) {
+                t.interrupt();
+            }
+        }
+    }
+
+    // 停止处理: 丢弃所有排队中的项目, 中断正在运行的线程, 并让 run() 立即返回
+    // 被丢弃或中断的项目由调用者清理
+    public void cancel() {
+        cancelled = true;
+        for (Stage stage : stages) {
+            stage.queue.clear();
+        }
+        for (Thread t : running) {
+            t.interrupt();
+        }
+        CountDownLatch latch = remaining;
+        while (latch.getCount() > 0) {
+            latch.countDown();
+        }
+    }
+
+    // 等待所有线程退出, 超时返回 false
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread t : running) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                break;
+            }
+            t.join(wait);
+        }
+        return running.stream().noneMatch(Thread::isAlive);
+    }
+
+    private void work(Stage stage) {
+        while (!cancelled && !Thread.currentThread().isInterrupted()) {
+            T item;
+            try {
+                item = stage.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            stage.active.incrementAndGet();
+            boolean next = false;
+            try {
+                next = !cancelled && stage.step.run(item);
+            } catch (Throwable e) {
+                if (!cancelled) {
+                    onError.accept(item, e);
+                }
+            } finally {
+                stage.active.decrementAndGet();
+                stage.processed.incrementAndGet();
+            }
+
+            if (next && stage.next != null) {
+                try {
+                    stage.next.queue.put(item);
+                } catch (InterruptedException e) {
+                    remaining.countDown();
+                    return;
+                }
+            } else {
+                remaining.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Map;
+
+// 平台适配器: UpdateEngine 通过它读取配置与输出日志, Bukkit 与 Velocity 各有一个实现
+public interface Platform {
+
+    // 重新读取配置文件, 在加载和重载配置时调用
+    void reloadConfig();
+
+    // 读取配置, path 使用点号分隔, 不存在时返回 null
+    Object get(String path);
+
+    // 插件数据目录, 用于 API 缓存与对等缓存
+    Path dataFolder();
+
+    // 服务器版本, 用于 version: serverVersion
+    String serverVersion();
+
+    void info(String text);
+
+    void warn(String text);
+
+    // 带颜色代码的控制台消息, 用于 MARK 日志
+    default void console(String text) {
+        info(text);
+    }
+
+    // 在线玩家数量, 用于下载限速. 不支持时返回 -1
+    default int onlinePlayers() {
+        return -1;
+    }
+
+    // 服务器最近的平均 tick 耗时 (毫秒), 用于下载限速. 不支持时返回 -1
+    default double mspt() {
+        return -1;
+    }
+
+    // 推送模式可以使用的后端服务器: 名称 -> 地址, 不支持推送的平台返回 null
+    default Map<String, InetSocketAddress> backends() {
+        return null;
+    }
+
+    // 运行指令的对象
+    interface Sender {
+        void sendMessage(String text);
+
+        // 控制台已经能看到日志, 只有玩家需要单独发送结果
+        boolean isPlayer();
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.google.gson.Gson;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// 推送模式: Velocity 解析并验证文件后推送到运行接收模式 (PushReceiver) 的后端服务器
+// 先提交清单, 只上传后端回复需要的文件, 并记录每个后端中每个文件的安装状态
+public final class PushCoordinator {
+
+    // 一个待推送的文件, servers 为空时推送到所有后端
+    public static final class Artifact {
+        final String file;
+        final Path path;
+        final String sha256;
+        final Set<String> servers;
+
+        public Artifact(String file, Path path, String sha256, Set<String> servers) {
+            this.file = file;
+            this.path = path;
+            this.sha256 = sha256;
+            this.servers = servers;
+        }
+
+        boolean isFor(String backend) {
+            return servers.isEmpty() || servers.contains(backend);
+        }
+    }
+
+    // 一个后端最后一次推送的结果
+    public static final class BackendStatus {
+        public final long time = System.currentTimeMillis();
+        public final String error;                                          // 无法连接或清单被拒绝时的错误, 正常时为 null
+        public final Map<String, String> files = new LinkedHashMap<>();     // 文件名 -> latest, installed 或 failed
+
+        BackendStatus(String error) {
+            this.error = error;
+        }
+    }
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final MediaType BINARY = MediaType.parse("application/octet-stream");
+
+    private final OkHttpClient client;
+    private final String token;
+    private final Map<String, BackendStatus> status = new ConcurrentHashMap<>();
+
+    public PushCoordinator(String token, long timeoutSeconds) {
+        this.token = token;
+        // 后端通常在内网中, 不使用代理
+        this.client = new OkHttpClient.Builder()
+                .proxy(Proxy.NO_PROXY)
+                .connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    // 推送到一个后端, baseUrl 例如 http://10.0.0.2:9942
+    public BackendStatus push(String backend, String baseUrl, List<Artifact> artifacts) {
+        PushReceiver.Manifest manifest = new PushReceiver.Manifest();
+        Map<String, Artifact> byName = new LinkedHashMap<>();
+        for (Artifact a : artifacts) {
+            if (!a.isFor(backend)) continue;
+            byName.put(a.file, a);
+            try {
+                manifest.files.add(new PushReceiver.Item(a.file, a.sha256, Files.size(a.path)));
+            } catch (IOException e) {
+                byName.remove(a.file);
+            }
+        }
+        if (byName.isEmpty()) {
+            status.remove(backend);
+            return null;
+        }
+
+        // 提交清单, 后端回复哈希不同的文件
+        PushReceiver.Need need;
+        Request.Builder request = request(baseUrl + "/manifest")
+                .post(RequestBody.create(new Gson().toJson(manifest), JSON));
+        try (Response res = client.newCall(request.build()).execute()) {
+            if (!res.isSuccessful()) {
+                throw new IOException("HTTP " + res.code());
+            }
+            need = new Gson().fromJson(res.body().string(), PushReceiver.Need.class);
+        } catch (Exception e) {
+            BackendStatus failed = new BackendStatus(e.getMessage());
+            status.put(backend, failed);
+            return failed;
+        }
+
+        BackendStatus result = new BackendStatus(null);
+        Set<String> needed = need != null && need.need != null ? new HashSet<>(need.need) : Set.of();
+        for (Artifact a : byName.values()) {
+            if (!needed.contains(a.file)) {
+                result.files.put(a.file, "latest");
+                continue;
+            }
+            Request.Builder put = request(baseUrl + "/files/" + a.file + "?sha256=" + a.sha256)
+                    .put(RequestBody.create(a.path.toFile(), BINARY));
+            try (Response res = client.newCall(put.build()).execute()) {
+                result.files.put(a.file, res.isSuccessful() ? "installed" : "failed");
+            } catch (IOException e) {
+                result.files.put(a.file, "failed");
+            }
+        }
+        status.put(backend, result);
+        return result;
+    }
+
+    // 每个后端最后一次推送的结果
+    public Map<String, BackendStatus> getStatus() {
+        return new TreeMap<>(status);
+    }
+
+    private Request.Builder request(String url) {
+        Request.Builder request = new Request.Builder().url(url);
+        if (!token.isEmpty()) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+}
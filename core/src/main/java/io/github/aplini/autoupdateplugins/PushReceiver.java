@@ -0,0 +1,178 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.jar.JarFile;
+
+// 接收模式: 接收 Velocity 推送的文件并放入更新目录
+// POST /manifest 提交文件清单, 返回需要上传的文件; PUT /files/<文件名>?sha256=<哈希> 上传一个文件
+public final class PushReceiver {
+
+    // 清单中的一个文件
+    public static final class Item {
+        public String file;
+        public String sha256;
+        public long size;
+
+        public Item() {}
+
+        public Item(String file, String sha256, long size) {
+            this.file = file;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+    }
+
+    public static final class Manifest {
+        public List<Item> files = new ArrayList<>();
+    }
+
+    public static final class Need {
+        public List<String> need = new ArrayList<>();
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path updateDir;
+    private final Path pluginDir;
+    private final BufferPool pool;
+    private final Consumer<String> installed;
+
+    private PushReceiver(HttpServer server, ExecutorService executor, Path updateDir, Path pluginDir,
+                         BufferPool pool, Consumer<String> installed) {
+        this.server = server;
+        this.executor = executor;
+        this.updateDir = updateDir;
+        this.pluginDir = pluginDir;
+        this.pool = pool;
+        this.installed = installed;
+    }
+
+    // 文件写入 updateDir, pluginDir 中的同名文件用于判断是否已是最新. installed 在每次安装后调用
+    // 收到的文件会在重启后被服务器加载, 因此必须设置 token, 所有请求都需要 Authorization: Bearer <token>
+    public static PushReceiver start(String host, int port, String token, Path updateDir, Path pluginDir,
+                                     BufferPool pool, Consumer<String> installed) throws IOException {
+        BearerAuth.require(token);
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        // 推送按顺序进行, 使用一个守护线程处理
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "AUP-Receive");
+            t.setDaemon(true);
+            return t;
+        });
+        PushReceiver receiver = new PushReceiver(server, executor, updateDir, pluginDir, pool, installed);
+        server.createContext("/manifest", exchange -> {
+            try (exchange) {
+                if (!BearerAuth.accept(exchange, "POST", token)) return;
+                Manifest manifest;
+                try (InputStream in = exchange.getRequestBody()) {
+                    manifest = new Gson().fromJson(new String(in.readAllBytes(), StandardCharsets.UTF_8), Manifest.class);
+                } catch (RuntimeException e) {
+                    exchange.sendResponseHeaders(400, -1);
+                    return;
+                }
+                Need need = new Need();
+                if (manifest != null && manifest.files != null) {
+                    for (Item item : manifest.files) {
+                        if (isValidName(item.file) && item.sha256 != null && !item.sha256.equalsIgnoreCase(receiver.installedHash(item.file))) {
+                            need.need.add(item.file);
+                        }
+                    }
+                }
+                byte[] bytes = new Gson().toJson(need).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        });
+        server.createContext("/files/", exchange -> {
+            try (exchange) {
+                if (!BearerAuth.accept(exchange, "PUT", token)) return;
+                String file = exchange.getRequestURI().getPath().substring("/files/".length());
+                String query = exchange.getRequestURI().getQuery();
+                String sha256 = query != null && query.startsWith("sha256=") ? query.substring(7) : "";
+                if (!isValidName(file) || !sha256.matches("[0-9a-fA-F]{64}")) {
+                    exchange.sendResponseHeaders(400, -1);
+                    return;
+                }
+                try (InputStream in = exchange.getRequestBody()) {
+                    if (!receiver.install(file, sha256, in)) {
+                        exchange.sendResponseHeaders(422, -1);
+                        return;
+                    }
+                }
+                exchange.sendResponseHeaders(204, -1);
+                installed.accept(file);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        return receiver;
+    }
+
+    // 写入临时文件, 验证哈希与 jar 完整性后移动到更新目录
+    private boolean install(String file, String sha256, InputStream in) throws IOException {
+        Files.createDirectories(updateDir);
+        Path part = updateDir.resolve("." + file + ".aup-part");
+        try {
+            pool.transfer(in, part);
+            if (!sha256.equalsIgnoreCase(hash(part)) || (file.endsWith(".jar") && !isJarIntact(part))) {
+                return false;
+            }
+            Files.move(part, updateDir.resolve(file), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    // 已安装文件的 SHA-256, 优先使用更新目录中等待安装的文件
+    private String installedHash(String file) {
+        Path update = updateDir.resolve(file);
+        return hash(Files.exists(update) ? update : pluginDir.resolve(file));
+    }
+
+    private String hash(Path file) {
+        try {
+            byte[] digest = pool.digest(file, "SHA-256");
+            return String.format("%0" + (digest.length * 2) + "x", new BigInteger(1, digest));
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static boolean isJarIntact(Path file) {
+        try (JarFile jar = new JarFile(file.toFile())) {
+            return jar.size() >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // 只接受不包含路径的文件名
+    static boolean isValidName(String file) {
+        return file != null && file.matches("[\\w.+\\-]+") && !file.startsWith(".");
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// 更新任务的运行状态, 由计时器线程, 指令线程和更新线程共同使用
+// 所有状态变化都通过 CAS 完成, 不会阻塞调用者
+public final class RunState {
+
+    public enum State {
+        IDLE,           // 没有正在运行的更新
+        RUNNING,        // 正在运行更新 (或正在重载配置)
+        STOPPING,       // 已请求停止, 等待更新线程退出
+        RELOAD_PENDING  // 更新结束后需要重载配置
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+
+    public State get() {
+        return state.get();
+    }
+
+    public boolean isIdle() {
+        return state.get() == State.IDLE;
+    }
+
+    // 开始一轮更新, 已有更新正在运行时返回 false
+    public boolean tryStart() {
+        return state.compareAndSet(State.IDLE, State.RUNNING);
+    }
+
+    // 请求停止正在运行的更新, 没有正在运行的更新时返回 false
+    // 等待重载的状态保持不变, 更新结束后仍会重载配置
+    public boolean requestStop() {
+        while (true) {
+            State s = state.get();
+            if (s == State.IDLE) {
+                return false;
+            }
+            if (s != State.RUNNING || state.compareAndSet(s, State.STOPPING)) {
+                return true;
+            }
+        }
+    }
+
+    // 请求重载配置
+    // 返回 true 时调用者获得运行权, 需要立即重载配置并调用 finish(). 返回 false 时重载被推迟到当前更新结束
+    // 正在停止时返回 false 且不改变状态, 重载不会被推迟
+    public boolean requestReload() {
+        while (true) {
+            State s = state.get();
+            if (s == State.IDLE) {
+                if (state.compareAndSet(s, State.RUNNING)) {
+                    return true;
+                }
+            } else if (s == State.STOPPING) {
+                return false;
+            } else if (s == State.RELOAD_PENDING || state.compareAndSet(s, State.RELOAD_PENDING)) {
+                return false;
+            }
+        }
+    }
+
+    // 结束一轮更新或重载
+    // 返回 true 时有被推迟的重载, 调用者继续持有运行权, 需要重载配置后再次调用 finish()
+    public boolean finish() {
+        while (true) {
+            State s = state.get();
+            if (s == State.RELOAD_PENDING) {
+                if (state.compareAndSet(s, State.RUNNING)) {
+                    return true;
+                }
+            } else if (state.compareAndSet(s, State.IDLE)) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.aplini.autoupdateplugins;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// temp.yml: 每个项目的更新记录, 路径使用点号分隔, 例如 previous.<hash>.dUrl
+// 文件格式与 Bukkit 的 YamlConfiguration 相同, 旧版本保存的记录可以直接读取. 调用方负责同步
+public final class TempData {
+    private final Path file;
+    private final Map<String, Object> root;
+
+    private TempData(Path file, Map<String, Object> root) {
+        this.file = file;
+        this.root = root;
+    }
+
+    // 读取文件, 文件不存在或损坏时返回空记录
+    public static TempData load(Path file) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        try {
+            if (Files.exists(file)) {
+                Object data = new Yaml().load(Files.readString(file, StandardCharsets.UTF_8));
+                if (data instanceof Map<?, ?> map) {
+                    root = copy(map);
+                }
+            }
+        } catch (Exception ignored) {}
+        return new TempData(file, root);
+    }
+
+    // YAML 会将 previous.-123 中的 -123 读取为数字, 键统一转换为字符串
+    private static Map<String, Object> copy(Map<?, ?> map) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            out.put(String.valueOf(e.getKey()), e.getValue() instanceof Map<?, ?> child ? copy(child) : e.getValue());
+        }
+        return out;
+    }
+
+    public Object get(String path) {
+        return Config.lookup(root, path);
+    }
+
+    public String getString(String path, String def) {
+        Object v = get(path);
+        return v == null || v instanceof Map ? def : String.valueOf(v);
+    }
+
+    public long getLong(String path, long def) {
+        Object v = get(path);
+        if (v instanceof Number n) return n.longValue();
+        return def;
+    }
+
+    // 设置一个值, 自动创建中间的节点. value 为 null 时删除
+    @SuppressWarnings("unchecked")
+    public void set(String path, Object value) {
+        String[] parts = path.split("\\.");
+        Map<String, Object> current = root;
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object child = current.get(parts[i]);
+            if (!(child instanceof Map)) {
+                if (value == null) return;
+                child = new LinkedHashMap<String, Object>();
+                current.put(parts[i], child);
+            }
+            current = (Map<String, Object>) child;
+        }
+        if (value == null) {
+            current.remove(parts[parts.length - 1]);
+        } else {
+            current.put(parts[parts.length - 1], value);
+        }
+    }
+
+    public String saveToString() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+        options.setAllowUnicode(true);
+        return new Yaml(options).dump(root);
+    }
+
+    // 先写入临时文件再替换, 避免保存时被中断留下不完整的记录
+    public void save() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        Files.writeString(part, saveToString(), StandardCharsets.UTF_8);
+        Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,2688 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.google.gson.Gson;
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import javax.net.ssl.*;
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+
+// 更新引擎: 计时器, 更新流水线, 指令与各项服务. Bukkit 与 Velocity 通过 Platform 提供配置, 日志与服务器信息
+public final class UpdateEngine {
+    final Platform platform;
+    final Config config;
+
+    // 运行状态, 防止重复运行更新并在更新完成后再重载配置
+    final RunState state = new RunState();
+    // 计时器对象
+    Timer timer = null;
+    // 异步初始化, 完成前不启动计时器也不处理指令
+    volatile CompletableFuture<Void> ready = null;
+    // 正在运行关闭前更新, 期间结束的更新不再重载配置或启动计时器
+    volatile boolean closing = false;
+    // 更新处理线程
+    volatile CompletableFuture<Void> future = null;
+    // 记录最后一个使用指令的对象
+    volatile Platform.Sender lastSender = null;
+
+    TempData temp;
+
+    volatile List<String> logList = new ArrayList<>();
+
+    // 下载, 哈希和解压共用的缓冲区
+    BufferPool bufferPool;
+    // 更新任务使用的线程
+    UpdateExecutors executors;
+    // 解析下载链接时的 API 响应缓存, 未启用时为 null
+    volatile Cache apiCache = null;
+    // 多个服务器共用的下载存储, 未启用时为 null
+    volatile ArtifactStore artifactStore = null;
+    // 对等缓存的源节点: 清单, 保存文件的存储与 HTTP 端点, 未启用时为 null
+    volatile PeerManifest peerManifest = null;
+    volatile ArtifactStore peerStore = null;
+    PeerServer peerServer = null;
+    // 跟随节点访问源节点的客户端, 未启用时为 null
+    volatile OkHttpClient peerClient = null;
+    // 接收 Velocity 推送的文件, 未启用时为 null
+    PushReceiver pushReceiver = null;
+    // 推送模式: 将文件推送到后端服务器并记录结果, 未启用或平台不支持时为 null
+    volatile PushCoordinator pushCoordinator = null;
+    // 正在运行的更新流水线, 用于显示状态
+    volatile Pipeline<?> pipeline = null;
+    // 正在运行的一轮更新, 用于 `/aup stop`
+    volatile updatePlugins running = null;
+    // 每个项目在每个阶段的耗时统计, 在多轮更新之间保留
+    final UpdateStats stats = new UpdateStats(32);
+    // 在多轮更新之间累计的计数器, 用于 Prometheus 端点
+    final UpdateMetrics metrics = new UpdateMetrics();
+    // 所有下载共用的限速, 速率在每次下载开始时根据配置更新
+    final Bandwidth bandwidth = new Bandwidth();
+    // 镜像规则与每个地址的延迟记录, 记录在重载配置后保留
+    final MirrorSelector mirrors = new MirrorSelector();
+    MetricsServer metricsServer = null;
+
+    public UpdateEngine(Platform platform) {
+        this.platform = platform;
+        this.config = new Config(platform::get);
+    }
+
+    // 插件启用时加载配置
+    public void enable() {
+        load();
+
+        // 禁用证书验证
+        if(config.getBoolean("disableCertificateVerification", false)) {
+            // 创建一个 TrustManager, 它将接受任何证书
+            TrustManager[] trustAllCerts = new TrustManager[] {
+                    new X509TrustManager() {
+                        public X509Certificate[] getAcceptedIssuers() {
+                            return null;
+                        }
+                        public void checkClientTrusted(X509Certificate[] certs, String authType) {}
+                        public void checkServerTrusted(X509Certificate[] certs, String authType) {}
+                    }
+            };
+            // 获取默认的 SSLContext
+            SSLContext sslContext;
+            try {
+                sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(null, trustAllCerts, new SecureRandom());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            // 设置默认的 SSLSocketFactory
+            HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+        }
+    }
+
+    // 在插件自己的线程中运行 enable(), 导出配置, 读取更新记录与启动 HTTP 端点都不会阻塞服务器启动
+    public CompletableFuture<Void> enableAsync() {
+        long startTime = System.nanoTime();
+        ready = CompletableFuture.runAsync(() -> {
+            enable();
+            platform.info(m.piece(m.enableTime, (System.nanoTime() - startTime) / 1_000_000));
+        }, r -> {
+            Thread t = new Thread(r, "AUP-Init");
+            t.setDaemon(true);
+            t.start();
+        });
+        return ready;
+    }
+
+    // 服务器启动完成后检查配置并启动计时器
+    public void start() {
+        // 等待异步初始化完成, 确保计时器在第一次运行前已读取配置与更新记录
+        if(ready != null){
+            try {
+                ready.join();
+            } catch (Exception e) {
+                platform.warn(m.piece(m.enableErr, e.getCause() != null ? e.getCause() : e));
+                return;
+            }
+        }
+
+        // 检查过时的配置
+        if(config.getBoolean("debugLog", false)){
+            platform.warn("`debugLog` 配置已弃用, 请使用 `logLevel` - 启用哪些日志等级");
+        }
+
+        // 检查缺失的配置
+        if(config.get("setRequestProperty") == null){
+            platform.warn("缺少配置 `setRequestProperty` - HTTP 请求中编辑请求头");
+        }
+        if(config.get("message") == null){
+            platform.warn("缺少配置 `message` - 插件消息配置");
+        }
+
+        setTimer();
+    }
+
+    // 关闭前更新: 服务器关闭时等待正在运行的更新完成, 或立即运行一轮更新, 文件放入 updatePath 后在下次启动时生效
+    // 超过 shutdownUpdate.deadline 后停止更新, 不会推迟关闭太久. 由适配器在关闭过程中调用, 会阻塞调用者
+    public void shutdownUpdate() {
+        CompletableFuture<Void> init = ready;
+        if(!config.getBoolean("shutdownUpdate.enable", false) || init == null || !init.isDone() || init.isCompletedExceptionally()){
+            return;
+        }
+        closing = true;
+        try {
+            if(timer != null){
+                timer.cancel();
+                timer = null;
+            }
+            long deadline = config.getLong("shutdownUpdate.deadline", 60);
+            long end = System.nanoTime() + deadline * 1_000_000_000L;
+            platform.info("[AUP] "+ m.piece(m.shutdownUpdateStart, deadline));
+
+            // 已有更新正在运行时等待它完成, 否则运行一轮新的更新
+            if(!state.isIdle()){
+                platform.info("[AUP] "+ m.shutdownUpdateWait);
+            }else{
+                new updatePlugins(true, false, true, 0, 1).run();
+            }
+            CompletableFuture<Void> f = future;
+            if(f == null){
+                return;
+            }
+            try {
+                f.get(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                platform.warn("[AUP] "+ m.piece(m.shutdownUpdateTimeout, deadline));
+                updatePlugins cycle = running;
+                if(state.requestStop() && cycle != null){
+                    cycle.stop();
+                }
+                // 等待停止后的清理完成, 避免在 updatePath 中留下不完整的文件
+                try {
+                    f.get(config.getLong("stopTimeout", 10), TimeUnit.SECONDS);
+                } catch (Exception ignored) {}
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                platform.warn(String.valueOf(e.getCause()));
+            }
+        } finally {
+            // 同一个实例再次启用时可以正常重载
+            closing = false;
+        }
+    }
+
+    // 插件停用时停止计时器与所有 HTTP 端点
+    public void shutdown() {
+        if(timer != null){
+            timer.cancel();
+            timer = null;
+        }
+        if(metricsServer != null){
+            metricsServer.stop();
+            metricsServer = null;
+        }
+        closeApiCache();
+        if(peerServer != null){
+            peerServer.stop();
+            peerServer = null;
+        }
+        if(pushReceiver != null){
+            pushReceiver.stop();
+            pushReceiver = null;
+        }
+    }
+
+
+    public void saveDate(){
+        try {
+            temp.save();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void load(){
+        // 加载语言和配置
+        platform.reloadConfig();
+        loadMessage();
+
+        bufferPool = new BufferPool(config.getInt("bufferPoolSize", config.getInt("parallelism", 4)), 512 * 1024);
+        executors = new UpdateExecutors(config.getBoolean("virtualThreads", true));
+
+        temp = TempData.load(Path.of("./plugins/AutoUpdatePlugins/temp.yml"));
+        // 只在创建新文件时保存, 已有的记录无需重写
+        if(temp.get("previous") == null){
+            temp.set("previous", new HashMap<>());
+            saveDate();
+        }
+
+        setApiCache();
+        setArtifactStore();
+        setPeer();
+        setPushReceiver();
+        setPushCoordinator();
+        setMetricsServer();
+        setMirrors();
+    }
+
+    // 接收模式: 接收 Velocity 推送的文件并放入更新目录, 默认关闭
+    public void setPushReceiver(){
+        if(pushReceiver != null){
+            pushReceiver.stop();
+            pushReceiver = null;
+        }
+        if(!config.getBoolean("receive.enable", false)){
+            return;
+        }
+        // 收到的文件会在重启后被加载, 没有访问令牌时不启动
+        String token = config.getString("receive.token", "");
+        if(token.isEmpty()){
+            platform.warn(m.piece(m.tokenMissing, "receive.token"));
+            return;
+        }
+        String host = config.getString("receive.host", "127.0.0.1");
+        int port = config.getInt("receive.port", 9942);
+        try {
+            pushReceiver = PushReceiver.start(host, port, token,
+                    Path.of(getPath(config.getString("updatePath", "./plugins/update/"))),
+                    Path.of(getPath(config.getString("filePath", "./plugins/"))),
+                    bufferPool, file -> platform.info(m.piece(m.receiveInstalled, file)));
+            platform.info(m.piece(m.receiveStart, host, port));
+        } catch (IOException e) {
+            platform.warn(m.piece(m.receiveErr, e.getMessage()));
+        }
+    }
+
+    // 打开共享下载存储, 默认关闭
+    public void setArtifactStore(){
+        artifactStore = null;
+        if(!config.getBoolean("sharedStore.enable", false)){
+            return;
+        }
+        try {
+            artifactStore = new ArtifactStore(Path.of(config.getString("sharedStore.path", "../aup-store/")), bufferPool);
+        } catch (IOException e) {
+            platform.warn(m.piece(m.storeErr, e.getMessage()));
+        }
+    }
+
+    // 打开或关闭 API 响应缓存, 默认在插件目录的 cache 文件夹中保存最多 16MB
+    public void setApiCache(){
+        closeApiCache();
+        if(!config.getBoolean("apiCache.enable", false)){
+            return;
+        }
+        long maxSize = config.getLong("apiCache.maxSize", 16) * 1024 * 1024;
+        apiCache = new Cache(platform.dataFolder().resolve("cache").toFile(), maxSize);
+    }
+
+    public void closeApiCache(){
+        if(apiCache == null) return;
+        try {
+            apiCache.close();
+        } catch (IOException e) {
+            platform.warn(e.getMessage());
+        }
+        apiCache = null;
+    }
+
+    // 对等缓存: origin 解析并下载后通过 HTTP 提供给其他节点, follower 从源节点获取, 默认 off
+    public void setPeer(){
+        if(peerServer != null){
+            peerServer.stop();
+            peerServer = null;
+        }
+        peerManifest = null;
+        peerStore = null;
+        peerClient = null;
+        String mode = config.getString("peer.mode", "off");
+        // 跟随节点会安装源节点提供的文件, 源节点与跟随节点都必须设置访问令牌
+        if(!mode.equals("off") && config.getString("peer.token", "").isEmpty()){
+            platform.warn(m.piece(m.tokenMissing, "peer.token"));
+            return;
+        }
+        if(mode.equals("origin")){
+            String host = config.getString("peer.host", "127.0.0.1");
+            int port = config.getInt("peer.port", 9941);
+            try {
+                // 启用共享存储时直接使用其中的文件
+                Path dir = Files.createDirectories(platform.dataFolder().resolve("peer"));
+                ArtifactStore store = artifactStore != null ? artifactStore : new ArtifactStore(dir, bufferPool);
+                PeerManifest manifest = PeerManifest.load(dir.resolve("manifest.json"));
+                peerServer = PeerServer.start(host, port, config.getString("peer.token", ""),
+                        config.getInt("parallelism", 4), manifest::toJson, store::find);
+                peerStore = store;
+                peerManifest = manifest;
+                platform.info(m.piece(m.peerOriginStart, host, port, manifest.size()));
+            } catch (IOException e) {
+                platform.warn(m.piece(m.peerErr, e.getMessage()));
+            }
+        }else if(mode.equals("follower")){
+            long timeout = config.getLong("peer.timeout", 10);
+            // 源节点通常在内网中, 不使用代理
+            peerClient = new OkHttpClient.Builder()
+                    .proxy(Proxy.NO_PROXY)
+                    .connectTimeout(timeout, TimeUnit.SECONDS)
+                    .readTimeout(timeout, TimeUnit.SECONDS)
+                    .build();
+        }
+    }
+
+    // 请求源节点, 返回的响应需要关闭
+    Response peerGet(String path) throws IOException {
+        OkHttpClient client = peerClient;
+        if(client == null){
+            throw new IOException("peer.mode is not follower");
+        }
+        Request.Builder request = new Request.Builder().url(config.getString("peer.origin", "http://127.0.0.1:9941").replaceAll("/+$", "") + path);
+        request.header("Authorization", "Bearer "+ config.getString("peer.token", ""));
+        Response res = client.newCall(request.build()).execute();
+        if(!res.isSuccessful()){
+            res.close();
+            throw new IOException("HTTP "+ res.code());
+        }
+        return res;
+    }
+
+    // 启动或重启 Prometheus 端点, 默认关闭
+    public void setMetricsServer(){
+        if(metricsServer != null){
+            metricsServer.stop();
+            metricsServer = null;
+        }
+        if(!config.getBoolean("metrics.enable", false)){
+            return;
+        }
+        String host = config.getString("metrics.host", "127.0.0.1");
+        int port = config.getInt("metrics.port", 9940);
+        try {
+            metricsServer = MetricsServer.start(host, port, () -> metrics.render(stats, apiCache));
+            platform.info(m.piece(m.metricsStart, host, port));
+        } catch (IOException e) {
+            platform.warn(m.piece(m.metricsErr, e.getMessage()));
+        }
+    }
+
+    // 读取镜像规则, 未启用时清空
+    public void setMirrors(){
+        List<MirrorSelector.Rule> rules = new ArrayList<>();
+        if(config.getBoolean("mirrors.enable", false) && config.get("mirrors.rules") instanceof List<?> list){
+            for(Object _li : list){
+                if(!(_li instanceof Map<?, ?> li) || li.get("match") == null) continue;
+                try {
+                    List<String> targets = new ArrayList<>();
+                    if(li.get("mirrors") instanceof List<?> values){
+                        for(Object v : values) targets.add(String.valueOf(v));
+                    }
+                    rules.add(new MirrorSelector.Rule(
+                            li.get("resolver") == null ? "" : String.valueOf(li.get("resolver")),
+                            li.get("type") == null ? "" : String.valueOf(li.get("type")),
+                            Pattern.compile(String.valueOf(li.get("match"))),
+                            targets,
+                            !(li.get("origin") instanceof Boolean b) || b));
+                } catch (PatternSyntaxException e) {
+                    platform.warn(m.piece(m.mirrorErrRule, li.get("match"), e.getDescription()));
+                }
+            }
+        }
+        mirrors.setRules(rules);
+    }
+
+    // 推送模式: 只在提供后端服务器列表的平台 (Velocity) 上启用, 重载时保留上一次推送的结果
+    public void setPushCoordinator(){
+        if(!config.getBoolean("push.enable", false) || platform.backends() == null){
+            pushCoordinator = null;
+        }else if(config.getString("push.token", "").isEmpty()){
+            // 后端的接收模式要求访问令牌
+            platform.warn(m.piece(m.tokenMissing, "push.token"));
+            pushCoordinator = null;
+        }else if(pushCoordinator == null){
+            pushCoordinator = new PushCoordinator(config.getString("push.token", ""), config.getLong("push.timeout", 30));
+        }
+    }
+
+    public void setTimer(){
+        long startupDelay = config.getLong("startupDelay", 64);
+        long startupCycle = config.getLong("startupCycle", 61200);
+        // 检查更新间隔是否过低
+        if(startupCycle < 256 && !config.getBoolean("disableUpdateCheckIntervalTooLow", false)){
+            platform.warn(m.updateCheckIntervalTooLow);
+            startupCycle = 512;
+        }
+        if(timer != null){
+            timer.cancel();
+            timer = null;
+        }
+        timer = new Timer();
+        // 滚动模式: 将 list 分为多个分片, 分散到整个更新周期中检查
+        if(config.getBoolean("rolling.enable", false)){
+            int slices = Math.max(1, config.getInt("rolling.slices", 12));
+            long period = startupCycle * 1000 / slices;
+            platform.info(m.piece(m.timerRolling, startupDelay, slices, period / 1000));
+            timer.schedule(new rollingSlice(timer, 0, slices, period), startupDelay * 1000);
+            return;
+        }
+        // 计时器
+        platform.info(m.piece(m.timer, startupDelay, startupCycle));
+        timer.schedule(new updatePlugins(false), startupDelay * 1000, startupCycle * 1000);
+    }
+
+    // 运行一个分片的更新, 然后安排下一个分片
+    private class rollingSlice extends TimerTask {
+        final Timer owner;      // 创建这个分片的计时器, 重载配置后旧的计时器会被取消
+        final int slice;
+        final int slices;
+        final long period;      // 两个分片之间的平均间隔 (毫秒)
+
+        rollingSlice(Timer owner, int slice, int slices, long period) {
+            this.owner = owner;
+            this.slice = slice;
+            this.slices = slices;
+            this.period = period;
+        }
+
+        public void run() {
+            new updatePlugins(false, slice, slices).run();
+
+            // 添加随机偏移, 避免与其他定时任务始终同时运行
+            long jitter = (long) (period * Math.max(0, Math.min(1, config.getDouble("rolling.jitter", 0.2))));
+            long delay = period + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+            try {
+                owner.schedule(new rollingSlice(owner, (slice + 1) % slices, slices, period), Math.max(1000, delay));
+            } catch (IllegalStateException ignored) {} // 计时器已被取消
+        }
+    }
+
+    // 指令补全
+    public List<String> complete(String[] args) {
+        if (args.length == 1) {
+            return  List.of(
+                    "reload",   // 重载插件
+                    "update",   // 运行更新
+                    "check",    // 检查可用的更新, 不下载
+                    "log",      // 查看日志
+                    "status",   // 查看更新状态
+                    "stats",    // 查看耗时统计
+                    "stop"      // 立即停止当前更新
+            );
+        }
+        return null;
+    }
+
+    // 运行指令
+    public boolean command(String[] args, Platform.Sender sender) {
+        if(ready != null && !ready.isDone()){
+            sender.sendMessage("[AUP] "+ m.commandNotReady);
+            return true;
+        }
+        lastSender = sender;
+
+        // 默认输出插件信息
+        if(args.length == 0){
+            sender.sendMessage("""
+                    IpacEL > AutoUpdatePlugins: 自动更新插件
+                      指令:
+                        - /aup reload - 重载配置
+                        - /aup update - 运行更新
+                        - /aup check  - 检查可用的更新, 不下载文件
+                        - /aup log    - 查看完整日志
+                        - /aup status - 查看更新状态
+                        - /aup stats [项目] - 查看耗时统计
+                        - /aup stop   - 停止当前更新""");
+            return true;
+        }
+
+        // 重载配置
+        else if(args[0].equals("reload")){
+            if(!state.requestReload()){
+                sender.sendMessage("[AUP] "+ (state.get() == RunState.State.STOPPING ? m.commandReloadOnStopping : m.commandReloadOnUpdating));
+                return true;
+            }
+            try {
+                load();
+                sender.sendMessage("[AUP] "+ m.commandReloadOK);
+                setTimer();
+            } finally {
+                finishRun();
+            }
+            return true;
+        }
+
+        // 手动运行更新
+        else if(args[0].equals("update")){
+            if(!state.isIdle() && !config.getBoolean("disableLook", false)){
+                sender.sendMessage("[AUP] "+ m.commandRepeatedRunUpdate);
+                return true;
+            }
+            sender.sendMessage("[AUP] "+ m.commandUpdateStart);
+            new Timer().schedule(new updatePlugins(true), 0);
+            return true;
+        }
+
+        // 只检查可用的更新, 不下载文件
+        else if(args[0].equals("check")){
+            if(!state.isIdle() && !config.getBoolean("disableLook", false)){
+                sender.sendMessage("[AUP] "+ m.commandRepeatedRunUpdate);
+                return true;
+            }
+            sender.sendMessage("[AUP] "+ m.commandCheckStart);
+            new Timer().schedule(new updatePlugins(true, true, 0, 1), 0);
+            return true;
+        }
+
+        // 查看日志
+        else if(args[0].equals("log")){
+            sender.sendMessage("[AUP] "+ m.commandFullLog);
+            for(String li : List.copyOf(logList)){
+                sender.sendMessage("  | " + li);
+            }
+            return true;
+        }
+
+        // 查看正在运行的更新中每个阶段的状态, 以及每个后端最后一次推送的结果
+        else if(args[0].equals("status")){
+            Pipeline<?> p = pipeline;
+            if(state.isIdle()){
+                sender.sendMessage("[AUP] "+ m.commandStatusIdle);
+            }else{
+                sender.sendMessage("[AUP] "+ m.piece(m.commandStatusState, state.get().name()));
+                if(p != null){
+                    sender.sendMessage("[AUP] "+ m.commandStatus);
+                    for(Pipeline<?>.Stage stage : p.getStages()){
+                        sender.sendMessage("  | "+ m.piece(m.commandStatusStage, stage.getName(),
+                                stage.getDepth() +"/"+ stage.getCapacity(),
+                                stage.getActive() +"/"+ stage.getWorkers(),
+                                stage.getProcessed()));
+                    }
+                }
+            }
+            sendPushStatus(sender);
+            sendMirrorStatus(sender);
+            return true;
+        }
+
+        // 查看每个项目的耗时统计
+        else if(args[0].equals("stats")){
+            if(args.length > 1){
+                UpdateStats.Entry entry = stats.find(args[1]);
+                if(entry == null){
+                    sender.sendMessage("[AUP] "+ m.piece(m.commandStatsNotFound, args[1]));
+                    return true;
+                }
+                sender.sendMessage("[AUP] "+ m.piece(m.commandStatsEntry, entry.getName(),
+                        String.format("%.2f", entry.getBytes() / 1048576.0), entry.getRetries(), entry.getCacheHits()));
+                entry.getStages().forEach((name, h) -> sender.sendMessage("  | "+ m.piece(m.commandStatsStage, name,
+                        h.getRecords(), ms(h.percentile(0.5)), ms(h.percentile(0.95)), ms(h.max()))));
+                return true;
+            }
+            List<UpdateStats.Entry> list = stats.slowest("total");
+            if(list.isEmpty()){
+                sender.sendMessage("[AUP] "+ m.commandStatsEmpty);
+                return true;
+            }
+            sender.sendMessage("[AUP] "+ m.commandStats);
+            for(UpdateStats.Entry entry : list){
+                UpdateStats.Histogram total = entry.getStage("total");
+                if(total == null) continue;
+                sender.sendMessage("  | "+ m.piece(m.commandStatsStage, entry.getName(),
+                        total.getRecords(), ms(total.percentile(0.5)), ms(total.percentile(0.95)), ms(total.max())));
+            }
+            return true;
+        }
+
+        // 停止当前更新
+        else if(args[0].equals("stop")){
+            if(state.requestStop()){
+                updatePlugins cycle = running;
+                if(cycle != null){
+                    cycle.stop();
+                }
+                sender.sendMessage("[AUP] "+ m.commandStopUpdateIng);
+            }else{
+                sender.sendMessage("[AUP] "+ m.stopUpdate);
+            }
+        }
+        return false;
+    }
+
+    // 每个后端最后一次推送的结果, 未启用推送模式时不显示
+    private void sendPushStatus(Platform.Sender sender) {
+        PushCoordinator coordinator = pushCoordinator;
+        if(coordinator == null){
+            return;
+        }
+        Map<String, PushCoordinator.BackendStatus> status = coordinator.getStatus();
+        if(status.isEmpty()){
+            sender.sendMessage("[AUP] "+ m.commandStatusPushNone);
+            return;
+        }
+        sender.sendMessage("[AUP] "+ m.commandStatusPush);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+        for(Map.Entry<String, PushCoordinator.BackendStatus> e : status.entrySet()){
+            PushCoordinator.BackendStatus s = e.getValue();
+            String time = LocalDateTime.ofInstant(Instant.ofEpochMilli(s.time), ZoneId.systemDefault()).format(format);
+            if(s.error != null){
+                sender.sendMessage("  | "+ m.piece(m.commandStatusBackendErr, e.getKey(), time, s.error));
+                continue;
+            }
+            sender.sendMessage("  | "+ m.piece(m.commandStatusBackend, e.getKey(), time,
+                    Collections.frequency(s.files.values(), "installed"),
+                    Collections.frequency(s.files.values(), "latest"),
+                    Collections.frequency(s.files.values(), "failed")));
+            // 只列出本次有变化或失败的文件
+            for(Map.Entry<String, String> f : s.files.entrySet()){
+                if(f.getValue().equals("latest")) continue;
+                sender.sendMessage("  |   - "+ f.getKey() +": "+ (f.getValue().equals("installed") ? m.pushStateInstalled : m.pushStateFailed));
+            }
+        }
+    }
+
+
+    // 下载限速 (KB/s), 0 表示不限速
+    // 使用第一个匹配当前时间段与在线玩家数量的 bandwidth.profiles, 都不匹配时使用 bandwidth.limit
+    // 服务器的 MSPT 超过 bandwidth.mspt 时不超过 bandwidth.msptLimit
+    long bandwidthLimit(){
+        long limit = config.getLong("bandwidth.limit", 0);
+        if(config.get("bandwidth.profiles") instanceof List<?> profiles){
+            LocalTime now = LocalTime.now();
+            int minute = now.getHour() * 60 + now.getMinute();
+            for(Object _p : profiles){
+                if(!(_p instanceof Map<?, ?> p)) continue;
+                if(p.get("time") != null && !Bandwidth.inWindow(String.valueOf(p.get("time")), minute)) continue;
+                if(p.get("minPlayers") instanceof Number min && platform.onlinePlayers() < min.intValue()) continue;
+                limit = p.get("limit") instanceof Number n ? n.longValue() : 0;
+                break;
+            }
+        }
+        double mspt = config.getDouble("bandwidth.mspt", 0);
+        if(mspt > 0 && platform.mspt() > mspt){
+            long slow = config.getLong("bandwidth.msptLimit", 512);
+            limit = limit > 0 ? Math.min(limit, slow) : slow;
+        }
+        return Math.max(0, limit);
+    }
+
+    // 每个镜像地址的平均延迟, 未启用镜像时不显示
+    private void sendMirrorStatus(Platform.Sender sender) {
+        List<MirrorSelector.Status> status = mirrors.status(config.getLong("mirrors.failCooldown", 300) * 1000);
+        if(status.isEmpty()){
+            return;
+        }
+        sender.sendMessage("[AUP] "+ m.commandStatusMirror);
+        for(MirrorSelector.Status s : status){
+            sender.sendMessage("  | "+ m.piece(m.commandStatusMirrorEntry, s.match(), s.mirror(),
+                    s.latency() < 0 ? "-" : s.latency(), s.failed() ? m.mirrorStateFailed : ""));
+        }
+    }
+
+    // 纳秒转换为毫秒
+    private static long ms(long nanos){
+        return nanos / 1_000_000;
+    }
+
+    // 结束一轮更新或重载并释放运行权, 期间被推迟的重载在这里完成
+    void finishRun(){
+        while(state.finish()){
+            if(closing) continue;   // 正在关闭, 放弃被推迟的重载
+            load();
+            setTimer();
+            platform.info("[AUP] "+ m.logReloadOK);
+            Platform.Sender sender = lastSender;
+            if(sender != null && sender.isPlayer()){
+                sender.sendMessage("[AUP] "+ m.logReloadOK);
+            }
+        }
+    }
+
+
+    private class updatePlugins extends TimerTask {
+        final AtomicInteger _fail = new AtomicInteger();          // 更新失败数量
+        final AtomicInteger _success = new AtomicInteger();       // 更新成功数量
+        final AtomicInteger _updateFul = new AtomicInteger();     // 已运行的更新数量
+        final AtomicInteger _allRequests = new AtomicInteger();   // 共进行的网络请求数量
+        long _startTime;                                          // 最终耗时
+        final AtomicLong _allFileSize = new AtomicLong();         // 已下载的文件大小合计
+        final AtomicInteger _skipped = new AtomicInteger();       // 未到检查时间而跳过的数量
+        final AtomicInteger _apiCacheHits = new AtomicInteger();  // 直接使用缓存而没有发出的 API 请求数量
+        final AtomicInteger _storeHits = new AtomicInteger();     // 从共享存储获取而没有下载的文件数量
+        final AtomicInteger _peerHits = new AtomicInteger();      // 从源节点获取的文件数量
+        long _bandwidthWait;                                      // 本轮开始时的限速等待时间, 用于计算本轮的等待时间
+        volatile PeerManifest peer = null;                        // 跟随节点: 本轮读取的源节点清单, 源节点不可用时为 null
+        final List<PushCoordinator.Artifact> pushList = Collections.synchronizedList(new ArrayList<>());    // 本轮需要推送到后端的文件
+
+        final boolean fullSweep;                                  // 忽略检查间隔, 检查所有项目 (`/aup update`)
+        AdaptiveInterval adaptive = null;                         // 每个项目的检查间隔, 未启用时为 null
+        CpuThrottle throttle = null;                              // 服务器卡顿时降低校验阶段的并行数量, 检查模式中为 null
+
+        volatile boolean stopped = false;                         // 已被 `/aup stop` 停止
+        CountDownLatch stopSignal = new CountDownLatch(1);        // 用于唤醒正在等待重试的请求
+        List<updateEntry> entries = List.of();                    // 本轮的所有项目, 用于取消网络请求与清理缓存文件
+
+        final int slice;                                          // 滚动模式中本轮检查的分片
+        final int slices;                                         // 分片数量, 1 表示检查所有项目
+        final boolean checkOnly;                                  // 检查模式 (`/aup check`): 只比较元数据, 不下载文件, 不修改 temp.yml
+        final boolean shutdown;                                   // 关闭前更新: 使用较旧的 API 缓存并提高网络阶段的并行数量
+
+        updatePlugins(boolean fullSweep) {
+            this(fullSweep, 0, 1);
+        }
+
+        updatePlugins(boolean fullSweep, int slice, int slices) {
+            this(fullSweep, false, slice, slices);
+        }
+
+        updatePlugins(boolean fullSweep, boolean checkOnly, int slice, int slices) {
+            this(fullSweep, checkOnly, false, slice, slices);
+        }
+
+        updatePlugins(boolean fullSweep, boolean checkOnly, boolean shutdown, int slice, int slices) {
+            this.fullSweep = fullSweep;
+            this.checkOnly = checkOnly;
+            this.shutdown = shutdown;
+            this.slice = slice;
+            this.slices = Math.max(1, slices);
+        }
+
+        public void run() {
+            // 防止重复运行
+            boolean owner = state.tryStart();
+            if(!owner && !config.getBoolean("disableLook", false)){
+                log(logLevel.WARN, m.repeatedRunUpdate);
+                return;
+            }
+
+            // 新线程
+            future = executors.runCycle(() -> {
+                try {
+                    cycle();
+                } finally {
+                    if(owner){
+                        finishRun();
+                    }
+                }
+            });
+        }
+
+        // 运行更新并输出统计信息
+        private void cycle() {
+            // 运行更新
+            runUpdate();
+
+            if(checkOnly){
+                if(!isStopped()) report();
+                return;
+            }
+
+            // 推送模式: 将本轮的文件推送到后端服务器
+            if(!isStopped() && !pushList.isEmpty()){
+                pushAll();
+            }
+
+            // 处理统计信息
+            log(logLevel.INFO, m.updateFul);
+            log(logLevel.INFO, "  - "+ m.piece(m.updateFulTime, Math.round((System.nanoTime() - _startTime) / 1_000_000_000.0)));
+
+            String st = "  - ";
+            if(_fail.get() != 0){st += m.piece(m.updateFulFail, _fail.get());}
+            if(_success.get() != 0){st += m.piece(m.updateFulUpdate, _success.get());}
+            if(_skipped.get() != 0){st += m.piece(m.updateFulSkip, _skipped.get());}
+            log(logLevel.INFO, st + m.piece(m.updateFulOK, _updateFul.get()));
+
+            String net = "  - "+ m.piece(m.updateFulNetRequest, _allRequests.get());
+            if(_apiCacheHits.get() != 0){net += m.piece(m.updateFulApiCache, _apiCacheHits.get());}
+            if(_storeHits.get() != 0){net += m.piece(m.updateFulStore, _storeHits.get());}
+            if(_peerHits.get() != 0){net += m.piece(m.updateFulPeer, _peerHits.get());}
+            long bandwidthWait = bandwidth.getWaitNanos() - _bandwidthWait;
+            if(bandwidthWait > 0){net += m.piece(m.updateFulBandwidth, String.format("%.1f", bandwidthWait / 1_000_000_000.0));}
+            metrics.addBandwidthWait(bandwidthWait);
+            log(logLevel.INFO, net + m.piece(m.updateFulDownloadFile, String.format("%.2f", _allFileSize.get() / 1048576.0)));
+            log(logLevel.DEBUG, "  - "+ m.piece(m.updateFulBuffer, bufferPool.getReused(), bufferPool.getAllocated()));
+            if(throttle != null && throttle.getThrottled() > 0){
+                log(logLevel.INFO, "  - "+ m.piece(m.updateFulThrottle, throttle.getThrottled(), String.format("%.1f", throttle.getWaitNanos() / 1_000_000_000.0)));
+                metrics.addVerifyThrottle(throttle.getThrottled(), throttle.getWaitNanos());
+            }
+
+            metrics.recordRun(_success.get(), _fail.get(), _allRequests.get(), _allFileSize.get(), System.nanoTime() - _startTime);
+        }
+
+        public void runUpdate() {
+
+            logList = Collections.synchronizedList(new ArrayList<>());    // 清空上一份日志
+            _startTime = System.nanoTime(); // 记录运行时间
+            bufferPool.resetStats();
+            // 计时器会重复运行同一个实例, 每一轮重新计数
+            _fail.set(0);
+            _success.set(0);
+            _updateFul.set(0);
+            _allRequests.set(0);
+            _allFileSize.set(0);
+            _skipped.set(0);
+            _apiCacheHits.set(0);
+            _storeHits.set(0);
+            _peerHits.set(0);
+            _bandwidthWait = bandwidth.getWaitNanos();
+            pushList.clear();
+            stopped = false;
+            stopSignal = new CountDownLatch(1);
+            entries = List.of();
+            running = this;
+            if(state.get() == RunState.State.STOPPING){   // 在开始前已请求停止
+                stop();
+            }
+
+            log(logLevel.INFO, checkOnly ? m.checkStart : m.updateStart);
+            if(slices > 1){
+                log(logLevel.DEBUG, m.piece(m.updateStartSlice, slice + 1, slices));
+            }
+
+            // 清理共享存储中长期未使用的文件
+            if(!checkOnly){
+                ArtifactStore store = artifactStore;
+                prune(store);
+                // 源节点单独使用的存储
+                if(peerStore != store){
+                    prune(peerStore);
+                }
+            }
+
+            // 跟随节点: 读取源节点的清单, 源节点不可用时直接请求上游
+            peer = null;
+            if(peerClient != null){
+                try(Response res = peerGet("/manifest")){
+                    peer = PeerManifest.fromJson(res.body().string());
+                    log(logLevel.DEBUG, m.piece(m.peerManifest, peer.size()));
+                } catch (Exception e) {
+                    log(logLevel.WARN, m.piece(m.peerErrOrigin, e.getMessage()));
+                }
+            }
+
+            List<?> list = (List<?>) config.get("list");
+            if(list == null){
+                log(logLevel.WARN, m.configErrList);
+                return;
+            }
+
+            // 网络阶段默认使用 parallelism 个线程, 计算阶段不超过 CPU 核心数的一半
+            int parallelism = config.getInt("parallelism", 4);
+            int cpuWorkers = Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors() / 2));
+            int queueSize = config.getInt("pipeline.queueSize", parallelism * 2);
+            // 关闭前更新需要在限定时间内完成, 网络阶段使用更多线程同时下载
+            int netWorkers = shutdown ? Math.max(1, config.getInt("shutdownUpdate.parallelism", parallelism * 2)) : -1;
+
+            // 根据历史更新频率调整每个项目的检查间隔, 依赖 temp.yml 中的更新记录
+            adaptive = null;
+            if(!checkOnly && config.getBoolean("adaptiveInterval.enable", false) && config.getBoolean("enablePreviousUpdate", true)){
+                adaptive = new AdaptiveInterval(
+                        config.getLong("startupCycle", 61200),
+                        config.getLong("adaptiveInterval.min", 0),
+                        config.getLong("adaptiveInterval.max", 259200),
+                        config.getDouble("adaptiveInterval.backoff", 1.5));
+            }
+            log(logLevel.DEBUG, m.piece(m.updateExecutor, executors.isVirtual() ? "VirtualThread" : "ThreadPool", parallelism));
+
+            // 每个阶段使用独立的队列与线程, 不同项目的网络请求与文件验证可以同时进行
+            Pipeline<updateEntry> stages = new Pipeline<updateEntry>((entry, e) -> entry.log(logLevel.WARN, e.toString()))
+                    .stage("resolve", netWorkers > 0 ? netWorkers : config.getInt("pipeline.resolve", parallelism), queueSize, executors.io(), timed("resolve", updateEntry::resolve));
+            if(checkOnly){
+                // 检查模式只有解析和比较两个阶段
+                stages.stage("check", config.getInt("pipeline.check", parallelism), queueSize, executors.io(), timed("check", updateEntry::preview));
+            }else{
+                // 校验阶段与服务器的 tick 线程竞争 CPU, 服务器卡顿时降速. 关闭前更新时服务器已停止 tick, 不降速
+                throttle = new CpuThrottle(platform::mspt,
+                        shutdown ? 0 : config.getDouble("verifyThrottle.mspt", 45),
+                        config.getLong("verifyThrottle.pause", 200),
+                        config.getLong("verifyThrottle.maxWait", 30));
+                stages.stage("check", netWorkers > 0 ? netWorkers : config.getInt("pipeline.check", parallelism), queueSize, executors.io(), timed("check", updateEntry::check))
+                        .stage("download", netWorkers > 0 ? netWorkers : config.getInt("pipeline.download", parallelism), queueSize, executors.io(), timed("download", updateEntry::download))
+                        .stage("verify", config.getInt("pipeline.verify", cpuWorkers), queueSize, executors.cpu(), throttle.wrap(timed("verify", updateEntry::verify), this::isStopped))
+                        .stage("hash", config.getInt("pipeline.hash", cpuWorkers), queueSize, executors.cpu(), throttle.wrap(timed("hash", updateEntry::dedupe), this::isStopped))
+                        .stage("install", config.getInt("pipeline.install", 1), queueSize, executors.io(), timed("install", updateEntry::install));
+            }
+
+            // 滚动模式中只检查属于这个分片的项目
+            List<updateEntry> entries = new ArrayList<>();
+            for(int i = 0; i < list.size(); i++){
+                if(i % slices == slice){
+                    entries.add(new updateEntry(this, list.get(i)));
+                }
+            }
+            this.entries = entries;
+            pipeline = stages;
+            if(stopped){    // 在准备期间被停止
+                stages.cancel();
+            }
+            try {
+                stages.run(entries);
+                // 被停止时等待正在运行的阶段退出, 超时后不再等待
+                if(stopped && !stages.awaitTermination(config.getLong("stopTimeout", 10) * 1000L)){
+                    log(logLevel.WARN, m.piece(m.stopUpdateTimeout, config.getLong("stopTimeout", 10)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pipeline = null;
+                running = null;
+            }
+
+            // 保存每个项目的检查时间与间隔
+            if(adaptive != null){
+                synchronized (temp) {
+                    saveDate();
+                }
+            }
+
+            // 如果任务被 `/aup stop` 停止
+            if(isStopped()){
+                // 删除未完成的项目留下的缓存文件
+                for(updateEntry entry : entries){
+                    entry.cleanup();
+                }
+                log(logLevel.INFO, m.stopUpdate);
+                if(lastSender != null && lastSender.isPlayer()){
+                    lastSender.sendMessage("[AUP] "+ m.stopUpdate);
+                }
+            }
+        }
+
+        // 记录每个阶段的耗时, 项目在最后一个阶段结束时记录总耗时
+        private Pipeline.Step<updateEntry> timed(String stage, Pipeline.Step<updateEntry> step){
+            return e -> {
+                if(isStopped()) return false;
+                long start = System.nanoTime();
+                boolean next = false;
+                try {
+                    next = step.run(e);
+                    return next;
+                } finally {
+                    long time = System.nanoTime() - start;
+                    e.elapsed += time;
+                    // 检查模式的耗时与更新不同, 不计入统计
+                    if(!checkOnly && e.c_file != null && !e.c_file.isEmpty()){
+                        stats.record(e.c_file, stage, time);
+                        if(!next || stage.equals("install")){
+                            stats.record(e.c_file, "total", e.elapsed);
+                        }
+                    }
+                }
+            };
+        }
+
+        // 推送到所有后端服务器, 每个后端只上传哈希不同的文件
+        private void pushAll(){
+            PushCoordinator coordinator = pushCoordinator;
+            Map<String, InetSocketAddress> backends = platform.backends();
+            if(coordinator == null || backends == null){
+                return;
+            }
+            List<PushCoordinator.Artifact> artifacts = List.copyOf(pushList);
+            for(Map.Entry<String, InetSocketAddress> backend : backends.entrySet()){
+                String name = backend.getKey();
+                String url = config.getString("push.backends."+ name, "");
+                if(url.isEmpty()){
+                    url = "http://"+ backend.getValue().getHostString() +":"+ config.getInt("push.port", 9942);
+                }
+                PushCoordinator.BackendStatus result = coordinator.push(name, url.replaceAll("/+$", ""), artifacts);
+                if(result == null){
+                    continue;
+                }
+                if(result.error != null){
+                    log(logLevel.WARN, m.piece(m.pushErrBackend, name, result.error));
+                    continue;
+                }
+                int failed = Collections.frequency(result.files.values(), "failed");
+                log(failed > 0 ? logLevel.WARN : logLevel.INFO, m.piece(m.pushBackend, name,
+                        Collections.frequency(result.files.values(), "installed"),
+                        Collections.frequency(result.files.values(), "latest"), failed));
+            }
+        }
+
+        // 删除存储中超过 sharedStore.maxAge 天未使用的文件
+        private void prune(ArtifactStore store){
+            if(store == null) return;
+            try {
+                store.prune(config.getLong("sharedStore.maxAge", 30) * 86400000L);
+            } catch (IOException e) {
+                log(logLevel.WARN, m.piece(m.storeErr, e.getMessage()));
+            }
+        }
+
+        // 是否已被 `/aup stop` 停止
+        public boolean isStopped(){
+            return stopped;
+        }
+
+        // 停止这一轮更新: 丢弃排队中的项目, 取消正在进行的网络请求, 唤醒正在等待重试的请求
+        public void stop(){
+            stopped = true;
+            stopSignal.countDown();
+            Pipeline<?> p = pipeline;
+            if(p != null){
+                p.cancel();
+            }
+            for(updateEntry entry : entries){
+                Call call = entry.call;
+                if(call != null){
+                    call.cancel();
+                }
+            }
+        }
+
+        // 输出检查模式的结果, 已是最新的项目只在 DEBUG 日志中显示
+        private void report() {
+            int update = 0, latest = 0, unknown = 0, fail = 0;
+            List<String> rows = new ArrayList<>();
+            List<String> latestRows = new ArrayList<>();
+            for(updateEntry entry : entries){
+                String row = entry._fileName + entry._nowParser;
+                if(entry.previewResult == null){
+                    fail++;
+                    rows.add("  | "+ m.checkStateFail +" "+ row);
+                }else if(entry.previewResult.equals("update")){
+                    update++;
+                    rows.add(0, "  | "+ m.checkStateUpdate +" "+ row + entry.previewDetail);
+                }else if(entry.previewResult.equals("unknown")){
+                    unknown++;
+                    rows.add("  | "+ m.checkStateUnknown +" "+ row + entry.previewDetail);
+                }else{
+                    latest++;
+                    latestRows.add("  | "+ m.checkStateLatest +" "+ row + entry.previewDetail);
+                }
+            }
+            String summary = m.piece(m.checkFul, String.format("%.1f", (System.nanoTime() - _startTime) / 1_000_000_000.0), update, latest, unknown, fail);
+
+            log(logLevel.INFO, summary);
+            for(String row : latestRows){
+                log(logLevel.DEBUG, row);
+            }
+            for(String row : rows){
+                log(logLevel.INFO, row);
+            }
+            Platform.Sender sender = lastSender;
+            if(sender != null && sender.isPlayer()){
+                sender.sendMessage("[AUP] "+ summary);
+                for(String row : rows){
+                    sender.sendMessage(row);
+                }
+            }
+        }
+
+        public void log(logLevel level, String text){
+            log(level, "", text);
+        }
+
+        // 在插件更新过程中输出尽可能详细的日志
+        public void log(logLevel level, String _fileName, String text){
+
+            if(text.isEmpty()) return;
+
+            if(isLogEnabled(config, level)){
+                switch(level.name){
+                    case "DEBUG":
+                        platform.info(_fileName + text);
+                        break;
+                    case "INFO":
+                        platform.info(text);
+                        break;
+                    case "MARK":
+                        // 一些新版本的控制台似乎很难显示颜色
+                        platform.console(level.color +"[AUP] "+ _fileName + text);
+                        break;
+                    case "WARN", "NET_WARN":
+                        platform.warn(_fileName + text);
+                        break;
+                }
+            }
+
+            // 根据日志等级添加样式代码, 并记录到 logList
+            // 非 INFO 日志添加 _nowFile 文本
+            logList.add(level.color + (level.name.equals("INFO") ? "" : _fileName) + text);
+        }
+    }
+
+    // 单个项目的更新过程, 每个项目使用独立的实例以便并行运行
+    private class updateEntry {
+        final updatePlugins cycle;      // 所属的这一轮更新
+        String _fileName = "[???] ";    // 当前文件的名称
+        String _nowParser = "[???] ";   // 用于解析直链的解析器名称
+
+        // 在这里存放当前插件的配置
+        String c_file;              // 文件名称
+        String c_url;               // 下载链接
+        String c_tempPath;          // 下载缓存路径, 默认使用全局配置
+        String c_updatePath;        // 更新存放路径, 默认使用全局配置
+        String c_filePath;          // 最终安装路径, 默认使用全局配置
+        String c_get;               // 查找单个文件的正则表达式, 默认选择第一个. 仅限 GitHub, Jenkins, Modrinth
+        String c_zipGet;            // 如果需要解压文件, 使用这个参数指定正则表达式
+        String c_loader;            // 插件加载器, 仅限 Modrinth
+        String c_version;           // 插件版本, 仅限 Modrinth
+        String c_version_type;      // 版本类型, 仅限 Modrinth
+        boolean c_zipFileCheck;     // 启用 zip 文件完整性检查, 默认默认使用全局配置或 true
+        boolean c_getPreRelease;    // 允许下载预发布版本, 默认 false. 仅限 GitHub
+        boolean c_zipStream;        // 下载时直接从数据流中解压 zipGet 匹配的文件, 不保存完整的压缩包
+        boolean c_adaptive;         // 根据历史更新频率调整检查间隔, 默认使用全局配置
+
+        // 在各个阶段之间传递的数据
+        final Object _li;
+        Map<?, ?> li;
+        String dUrl;                // 文件直链
+        String feature = "";        // 文件特征信息
+        String pPath = "";          // 在 temp.yml 中的记录路径
+        float fileSize;             // 下载的文件大小
+        volatile Call call;         // 正在进行的网络请求
+        long elapsed;               // 在所有阶段中的总耗时 (纳秒)
+        String upstreamHash = "";   // 上游 API 提供的文件哈希 "算法:十六进制值", 用于检查模式
+        String previewResult;       // 检查模式的结果: update, latest, unknown, 解析失败时为 null
+        String previewDetail = "";  // 检查模式中判断的依据
+        String peerKey;             // 在对等缓存清单中的键
+        PeerManifest.Entry peerEntry = null;  // 跟随节点: 源节点清单中的记录, 没有时直接请求上游
+        boolean fromPeer = false;   // 文件已从源节点下载, 源节点提供的是解压后的文件
+        Set<String> pushTo;         // 推送模式: 推送到哪些后端, 空集合为所有后端, 不推送时为 null
+        Path pushPath;              // 推送模式: 验证后的文件保存的位置, 不安装到代理
+
+        updateEntry(updatePlugins cycle, Object _li) {
+            this.cycle = cycle;
+            this._li = _li;
+        }
+
+        // 删除未完成的下载留下的缓存文件
+        void cleanup() {
+            if(c_tempPath == null) return;
+            new File(c_tempPath).delete();
+            new File(c_tempPath + "_aup.zip").delete();
+        }
+
+        // [阶段 resolve] 读取配置并找到文件下载链接
+        public boolean resolve() {
+            // 开始运行一个更新
+
+            cycle._fail.incrementAndGet();
+            cycle._updateFul.incrementAndGet();
+
+            li = (Map<?, ?>) _li;
+            if(li == null){
+                log(logLevel.WARN, m.configErrUpdate);
+                return false;
+            }
+
+            // 检查基础配置
+            c_file = (String) SEL(li.get("file"), "");
+            c_url = ((String) SEL(li.get("url"), "")).trim();
+            if(c_file.isEmpty() || c_url.isEmpty()){
+                log(logLevel.WARN, m.configErrMissing);
+                return false;
+            }
+
+            // 获取用于显示日志的插件名称
+            Matcher tempMatcher = Pattern.compile("([^/\\\\]+)\\..*$").matcher(c_file);
+            if(tempMatcher.find()){
+                _fileName = "["+ tempMatcher.group(1) +"] ";
+            }else{
+                _fileName = "["+ c_file +"] ";
+            }
+
+            // 如果 file 配置中包含路径, 则自动提取并设置 path 参数
+            tempMatcher = Pattern.compile("(.*/|.*\\\\)([^/\\\\]+)$").matcher(c_file);
+            if(tempMatcher.find()){ // windows 下的反斜杠路径
+                getPath(tempMatcher.group(1));
+                c_updatePath = c_file;
+                c_filePath = c_file;
+                c_tempPath = getPath(config.getString("tempPath", "./plugins/AutoUpdatePlugins/temp/")) + tempMatcher.group(2);
+            }
+            // path 参数将同时设置 c_updatePath 和 c_filePath
+            else if(li.get("path") != null){
+                c_updatePath = getPath((String) li.get("path")) + c_file;
+                c_filePath = c_updatePath;
+                c_tempPath = getPath(config.getString("tempPath", "./plugins/AutoUpdatePlugins/temp/")) + c_file;
+            }
+            // 使用全局配置
+            else{
+                c_updatePath = getPath((String) SEL(li.get("updatePath"), config.getString("updatePath", "./plugins/update/"))) + c_file;
+                c_filePath = getPath((String) SEL(li.get("filePath"), config.getString("filePath", "./plugins/"))) + c_file;
+                c_tempPath = getPath(config.getString("tempPath", "./plugins/AutoUpdatePlugins/temp/")) + c_file;
+            }
+
+            c_get = (String) SEL(li.get("get"), "");
+            c_zipGet = (String) SEL(li.get("zipGet"), "");
+            c_loader = ((String) SEL(li.get("loader"), "")).toLowerCase();
+            c_version = ((String) SEL(li.get("version"), "")).toLowerCase();
+            c_version_type = ((String) SEL(li.get("version_type"), "")).toLowerCase();
+            c_zipFileCheck = (boolean) SEL(li.get("zipFileCheck"), config.getBoolean("zipFileCheck", true));
+            c_getPreRelease = (boolean) SEL(li.get("getPreRelease"), false);
+            c_zipStream = !c_zipGet.isEmpty() && (boolean) SEL(li.get("zipStream"), config.getBoolean("zipStream", false));
+            c_adaptive = (boolean) SEL(li.get("adaptiveInterval"), true);
+
+            if(c_version.equals("serverversion")){
+                c_version = platform.serverVersion();
+            }
+            if(!c_version.isEmpty()){
+                log(logLevel.DEBUG, "[version]: \"" + c_version + "\"");
+            }
+
+            // 推送模式: 这个项目推送到后端服务器, 不安装到代理
+            pushTo = pushTargets(li.get("push"));
+            pushPath = pushTo == null ? null : Path.of(getPath("./plugins/AutoUpdatePlugins/push/")).resolve(Path.of(c_file).getFileName());
+
+            // 在 temp.yml 中的记录路径
+            pPath = "previous." + li.toString().hashCode();
+            peerKey = PeerManifest.key(c_url, c_get, c_zipGet, c_loader, c_version, c_version_type, c_getPreRelease, c_zipStream);
+
+            // 未到这个项目的检查时间
+            if(!isDue()){
+                cycle._fail.decrementAndGet();
+                cycle._skipped.incrementAndGet();
+                return false;
+            }
+
+            // "[xx] 正在检查更新..."
+            log(logLevel.DEBUG, m.updateChecking);
+
+            // 跟随节点: 使用源节点解析的结果, 不请求上游 API
+            PeerManifest manifest = cycle.peer;
+            peerEntry = manifest != null ? manifest.get(peerKey) : null;
+            if(peerEntry != null){
+                _nowParser = "[Peer] ";
+                dUrl = peerEntry.dUrl;
+                feature = peerEntry.feature;
+                upstreamHash = "SHA-256:"+ peerEntry.sha256;
+                log(logLevel.DEBUG, _nowParser + dUrl);
+                return true;
+            }
+
+            // 找到文件下载链接
+            UpdateEvents.Resolve resolveEvent = UpdateEvents.begin(new UpdateEvents.Resolve());
+            dUrl = getFileUrl(c_url, c_get, c_loader, c_version, c_version_type);
+            commit(resolveEvent, c_url, null, dUrl != null ? "ok" : "fail");
+            if(dUrl == null){
+                log(logLevel.WARN, _nowParser + m.updateErrParsingDUrl);
+                return false;
+            }
+
+            // 处理 URL 中的特殊字符
+            try {
+                dUrl = new URI(dUrl.trim()
+                        .replace(" ", "%20"))
+                        .toASCIIString();
+            } catch (URISyntaxException e) {
+                log(logLevel.WARN, "[URI] "+ m.piece(m.urlInvalid, dUrl));
+                dUrl = null;
+            }
+            return true;
+        }
+
+        // [阶段 check] 启用上一个更新记录与检查
+        public boolean check() {
+            if(!config.getBoolean("enablePreviousUpdate", true)){
+                return true;
+            }
+            if(peerEntry == null){
+                readFeature();
+            }
+
+            // 是否与上一个版本相同
+            boolean same;
+            synchronized (temp) {
+                // 检查数据差异
+                same = temp.get(pPath) != null &&
+                        temp.getString(pPath + ".dUrl", "").equals(dUrl) &&
+                        temp.getString(pPath + ".feature", "").equals(feature);
+            }
+            // 推送模式: 保存的文件已被删除时重新下载
+            same = same && (pushPath == null || Files.exists(pushPath));
+            // 源节点: 清单中没有这个版本时仍然下载, 以便提供给跟随节点
+            if(same && peerManifest != null && !isPublished()){
+                log(logLevel.DEBUG, m.peerPublishMissing);
+                return true;
+            }
+            if(same){
+                recordCheck(false);
+                stats.addCacheHit(c_file);
+                log(logLevel.MARK, m.updateTempAlreadyLatest);
+                // 仍然提交给后端, 后端只接收哈希不同的文件
+                if(pushPath != null){
+                    queuePush();
+                }
+                succeed();
+                return false;
+            }
+            return true;
+        }
+
+        // [检查模式] 只比较元数据判断是否有可用的更新, 不下载文件
+        public boolean preview() {
+            // 上游提供了文件哈希时与已安装的文件比较. 使用 zipGet 的项目下载的是压缩包, 无法比较, 源节点提供的是解压后的文件
+            if(!upstreamHash.isEmpty() && (c_zipGet.isEmpty() || peerEntry != null)){
+                String[] hash = upstreamHash.split(":", 2);
+                String local = fileDigest(new File(c_updatePath).exists() ? c_updatePath : c_filePath, hash[0]);
+                if(local != null){
+                    previewResult = local.equalsIgnoreCase(hash[1]) ? "latest" : "update";
+                    previewDetail = m.piece(m.checkByHash, hash[0], shortHash(local), shortHash(hash[1]));
+                    return false;
+                }
+            }
+
+            // 与上一个更新记录比较, 判断方式与更新时相同
+            String oldUrl = null, oldFeature = null;
+            if(config.getBoolean("enablePreviousUpdate", true)){
+                synchronized (temp) {
+                    if(temp.get(pPath) != null){
+                        oldUrl = temp.getString(pPath + ".dUrl", "");
+                        oldFeature = temp.getString(pPath + ".feature", "");
+                    }
+                }
+            }
+            if(oldUrl == null){
+                previewResult = "unknown";
+                previewDetail = m.checkNoRecord;
+                return false;
+            }
+            // 下载链接中通常包含版本号
+            if(!oldUrl.equals(dUrl)){
+                previewResult = "update";
+                previewDetail = m.piece(m.checkByUrl, oldUrl, dUrl);
+                return false;
+            }
+            if(peerEntry == null){
+                readFeature();
+            }
+            if(feature.startsWith("??_")){
+                previewResult = "unknown";
+                previewDetail = m.checkNoFeature;
+            }else if(feature.equals(oldFeature)){
+                previewResult = "latest";
+                previewDetail = m.checkSameRecord;
+            }else{
+                previewResult = "update";
+                previewDetail = m.piece(m.checkByFeature, oldFeature, feature);
+            }
+            return false;
+        }
+
+        // 通过 HEAD 请求获取文件特征信息
+        private void readFeature() {
+            try(Response res = fetch(dUrl, true, "reqDownload")){
+                if(res != null){
+                    String contentLength = SEL(res.headers().get("Content-Length"), -1).toString();
+                    if(!contentLength.equals("-1")){
+                        feature = "CL_"+ contentLength;
+                    }
+                    String location = SEL(res.headers().get("Location"), "Invalid").toString();
+                    if(!location.equals("Invalid")){
+                        feature = "LH_"+ location.hashCode();
+                    }
+                }
+            }
+            if(feature.isEmpty()){
+                feature = "??_"+ nowDate().hashCode();
+            }
+        }
+
+        // 是否需要在本轮检查这个项目
+        private boolean isDue() {
+            if(cycle.adaptive == null || cycle.fullSweep || !c_adaptive){
+                return true;
+            }
+            long now = System.currentTimeMillis() / 1000;
+            long checked, interval;
+            synchronized (temp) {
+                checked = temp.getLong(pPath + ".checked", 0);
+                interval = temp.getLong(pPath + ".interval", 0);
+            }
+            if(cycle.adaptive.isDue(checked, interval, now)){
+                return true;
+            }
+            log(logLevel.DEBUG, m.piece(m.updateSkipInterval, String.format("%.1f", (checked + interval - now) / 3600.0)));
+            return false;
+        }
+
+        // 记录检查时间, 并根据是否发现更新计算下一次检查间隔
+        // 发现更新时在安装 (或提交推送) 成功后才记录, 下载或校验失败时不记录, 下一轮会重新检查
+        private void recordCheck(boolean changed) {
+            if(cycle.adaptive == null) return;
+            long now = System.currentTimeMillis() / 1000;
+            synchronized (temp) {
+                long interval = changed
+                        ? cycle.adaptive.changed(temp.getLong(pPath + ".changed", 0), now)
+                        : cycle.adaptive.unchanged(temp.getLong(pPath + ".interval", 0));
+                temp.set(pPath + ".checked", now);
+                temp.set(pPath + ".interval", interval);
+                if(changed){
+                    temp.set(pPath + ".changed", now);
+                }
+            }
+        }
+
+        // [阶段 download] 下载文件到缓存目录
+        public boolean download() {
+            // 跟随节点: 从源节点下载, 失败时直接从上游下载
+            if(peerEntry != null && fetchPeer()){
+                return true;
+            }
+            ArtifactStore store = artifactStore;
+            // 没有可靠的文件特征时无法判断存储中的文件是否为同一个版本
+            if(store == null || feature.startsWith("??_")){
+                return fetchFile();
+            }
+            String key = ArtifactStore.key(dUrl, feature, c_zipStream ? "zipStream:"+ c_zipGet : "");
+            boolean downloaded = false;
+            try(ArtifactStore.Lock ignored = store.lock(key)){
+                String hash = store.fetch(key, Path.of(c_tempPath));
+                if(hash != null){
+                    cycle._storeHits.incrementAndGet();
+                    log(logLevel.DEBUG, m.piece(m.updateStoreHit, shortHash(hash)));
+                    fileSize = new File(c_tempPath).length();
+                    return true;
+                }
+                if(!fetchFile()){
+                    return false;
+                }
+                downloaded = true;
+                // 只保存完整的文件, 其他服务器会直接使用存储中的文件
+                if(!c_zipFileCheck || !Pattern.compile(config.getString("zipFileCheckList", "\\.(?:jar|zip)$")).matcher(c_file).find() || isJARFileIntact(c_tempPath)){
+                    store.put(key, Path.of(c_tempPath));
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                // 存储不可用时不影响更新
+                log(logLevel.WARN, m.piece(m.storeErr, e.getMessage()));
+                return downloaded || fetchFile();
+            }
+        }
+
+        // 从源节点下载文件并验证 SHA-256
+        private boolean fetchPeer() {
+            new File(c_tempPath).delete();
+            cycle._allRequests.incrementAndGet();
+            try(Response res = peerGet("/artifacts/"+ peerEntry.sha256)){
+                bufferPool.transfer(res.body().byteStream(), Paths.get(c_tempPath));
+            } catch (IOException e) {
+                log(logLevel.WARN, m.piece(m.peerErrArtifact, e.getMessage()));
+                new File(c_tempPath).delete();
+                return false;
+            }
+            String hash = fileDigest(c_tempPath, "SHA-256");
+            if(!peerEntry.sha256.equalsIgnoreCase(hash)){
+                log(logLevel.WARN, m.piece(m.peerErrArtifact, "SHA-256 "+ shortHash(String.valueOf(hash)) +" != "+ shortHash(peerEntry.sha256)));
+                new File(c_tempPath).delete();
+                return false;
+            }
+            fromPeer = true;
+            fileSize = new File(c_tempPath).length();
+            cycle._peerHits.incrementAndGet();
+            log(logLevel.DEBUG, m.piece(m.peerHit, shortHash(hash)));
+            return true;
+        }
+
+        private boolean fetchFile() {
+            // 缓存文件可能是从共享存储创建的硬链接, 不能直接覆盖写入
+            new File(c_tempPath).delete();
+            UpdateEvents.Download downloadEvent = UpdateEvents.begin(new UpdateEvents.Download());
+            // zipStream: 边下载边解压, 只写入 zipGet 匹配的文件
+            boolean ok = c_zipStream ? downloadUnzip(dUrl, c_zipGet, c_tempPath) : downloadFile(dUrl, c_tempPath);
+            commit(downloadEvent, dUrl, ok ? c_tempPath : null, ok ? "ok" : "fail");
+            if(!ok){
+                log(logLevel.WARN, m.updateErrDownload);
+                new File(c_tempPath).delete();
+                return false;
+            }
+
+            // 记录文件大小, 流式解压的下载量已在 downloadUnzip 中记录
+            fileSize = new File(c_tempPath).length();
+            if(!c_zipStream){
+                addBytes((long) fileSize);
+            }
+            return true;
+        }
+
+        // [阶段 verify] 文件完整性检查与解压
+        public boolean verify() {
+            if(c_zipFileCheck && Pattern.compile(config.getString("zipFileCheckList", "\\.(?:jar|zip)$")).matcher(c_file).find()){
+                UpdateEvents.ZipCheck zipCheckEvent = UpdateEvents.begin(new UpdateEvents.ZipCheck());
+                boolean intact = isJARFileIntact(c_tempPath);
+                commit(zipCheckEvent, null, c_tempPath, intact ? "ok" : "fail");
+                if(!intact){
+                    log(logLevel.WARN, m.updateZipFileCheck);
+                    new File(c_tempPath).delete();
+                    return false;
+                }
+            }
+
+            // 此时已确保文件(信息)正常
+            if(config.getBoolean("enablePreviousUpdate", true)){
+                // 更新数据
+                synchronized (temp) {
+                    temp.set(pPath + ".file", c_file);
+                    temp.set(pPath + ".time", nowDate());
+                    temp.set(pPath + ".dUrl", dUrl);
+                    temp.set(pPath + ".feature", feature);
+                    saveDate();
+                }
+            }
+
+            // 在这里实现运行系统命令的功能
+
+            // 从压缩包中解压文件
+            if(!c_zipGet.isEmpty() && !c_zipStream && !fromPeer) {
+                // 重命名文件, 添加 zip 后缀
+                String zipFilePath = c_tempPath + "_aup.zip";
+                try{
+                    Files.move(Paths.get(c_tempPath), Paths.get(zipFilePath), StandardCopyOption.REPLACE_EXISTING);
+                }catch (IOException e){
+                    log(logLevel.WARN, e.getMessage());
+                    new File(c_tempPath).delete();
+                    new File(zipFilePath).delete();
+                    return false;
+                }
+
+                // 解压文件
+                UpdateEvents.Unzip unzipEvent = UpdateEvents.begin(new UpdateEvents.Unzip());
+                boolean ok = unzip(zipFilePath, c_zipGet, c_tempPath);
+                commit(unzipEvent, null, ok ? c_tempPath : null, ok ? "ok" : "fail");
+                new File(zipFilePath).delete();
+                if(!ok){
+                    log(logLevel.WARN, m.zipDecompressionFailed);
+                    new File(c_tempPath).delete();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // [阶段 hash] 哈希值检查, 如果新文件哈希与更新目录中的相等, 或者与正在运行的版本相等, 则无需更新
+        public boolean dedupe() {
+            if(peerManifest != null){
+                publish();
+            }
+            // 推送模式: 保留验证后的文件, 在本轮结束后推送
+            if(pushPath != null){
+                try {
+                    Files.move(Path.of(c_tempPath), pushPath, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    log(logLevel.WARN, e.getMessage());
+                    new File(c_tempPath).delete();
+                    return false;
+                }
+                if(queuePush()){
+                    recordCheck(true);
+                    log(logLevel.MARK, m.pushQueued);
+                    cycle._success.incrementAndGet();
+                    succeed();
+                }
+                return false;
+            }
+            if(config.getBoolean("ignoreDuplicates", true) && (boolean) SEL(li.get("ignoreDuplicates"), true)){
+                String updatePathFileHas = fileHash(c_updatePath);
+                String tempFileHas = fileHash(c_tempPath);
+                if(Objects.equals(tempFileHas, updatePathFileHas) || Objects.equals(tempFileHas, fileHash(c_filePath))){
+                    log(logLevel.MARK, m.updateFileAlreadyLatest);
+                    recordCheck(false);
+                    succeed();
+                    new File(c_tempPath).delete();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 项目的 push 配置: true 推送到所有后端 (空集合), 列表为指定的后端, 未启用推送时为 null
+        private Set<String> pushTargets(Object push) {
+            if(pushCoordinator == null || push == null || Boolean.FALSE.equals(push)){
+                return null;
+            }
+            Set<String> servers = new HashSet<>();
+            if(push instanceof List<?> list){
+                for(Object name : list){
+                    servers.add(String.valueOf(name));
+                }
+            }else if(!Boolean.TRUE.equals(push)){
+                servers.add(String.valueOf(push));
+            }
+            return servers;
+        }
+
+        // 计算哈希并加入推送列表
+        private boolean queuePush() {
+            try {
+                byte[] digest = bufferPool.digest(pushPath, "SHA-256");
+                String hash = String.format("%0"+ (digest.length * 2) +"x", new BigInteger(1, digest));
+                cycle.pushList.add(new PushCoordinator.Artifact(pushPath.getFileName().toString(), pushPath, hash, pushTo));
+                return true;
+            } catch (Exception e) {
+                log(logLevel.WARN, e.getMessage());
+                return false;
+            }
+        }
+
+        // 源节点: 将处理完成的文件加入存储与清单
+        private void publish() {
+            try {
+                String hash = peerStore.put(peerKey, Path.of(c_tempPath));
+                peerManifest.put(peerKey, new PeerManifest.Entry(c_file, dUrl, feature, hash, new File(c_tempPath).length()));
+                peerManifest.save(platform.dataFolder().resolve("peer").resolve("manifest.json"));
+            } catch (Exception e) {
+                log(logLevel.WARN, m.piece(m.peerErr, e.getMessage()));
+            }
+        }
+
+        // 源节点: 清单中是否已有这个版本的文件
+        private boolean isPublished() {
+            PeerManifest.Entry entry = peerManifest.get(peerKey);
+            return entry != null && entry.dUrl.equals(dUrl) && entry.feature.equals(feature) && peerStore.find(entry.sha256) != null;
+        }
+
+        // [阶段 install] 移动到更新目录
+        public boolean install() {
+            // 获取旧版本的文件大小, 优先在更新目录中查找, 没有再查找最终安装位置. 如果文件均不存在会返回 0
+            float oldFileSize = new File(c_updatePath).exists() ? new File(c_updatePath).length() : new File(c_filePath).length();
+
+            UpdateEvents.Install installEvent = UpdateEvents.begin(new UpdateEvents.Install());
+            try {
+                Files.move(Path.of(c_tempPath), Path.of(c_updatePath), StandardCopyOption.REPLACE_EXISTING);
+                commit(installEvent, null, c_updatePath, "ok");
+                recordCheck(true);
+            } catch (IOException e) {
+                commit(installEvent, null, null, e.getClass().getSimpleName());
+                log(logLevel.WARN, e.getMessage());
+            }
+
+            // 更新完成, 并显示文件大小变化
+            log(logLevel.DEBUG, m.piece(m.updateFulSizeDifference, String.format("%.2f", oldFileSize / 1048576), String.format("%.2f", fileSize / 1048576)));
+
+            cycle._success.incrementAndGet();
+            succeed();
+            return false;
+        }
+
+
+        // 尝试打开 jar 文件以判断文件是否完整
+        public boolean isJARFileIntact(String filePath) {
+            return jarIntact(Paths.get(filePath));
+        }
+
+        // 计算文件哈希
+        public String fileHash(String filePath) {
+            UpdateEvents.Hash event = UpdateEvents.begin(new UpdateEvents.Hash());
+            try {
+                String hash = bufferPool.md5(Paths.get(filePath));
+                commit(event, null, filePath, "ok");
+                return hash;
+            } catch (Exception e) {
+//                outInfo(logLevel.WARN, e.getMessage()); // 文件不存在时会输出异常
+                commit(event, null, null, "missing");
+            }
+            return "null";
+        }
+
+        // 使用指定算法计算文件哈希, 文件不存在时返回 null
+        public String fileDigest(String filePath, String algorithm) {
+            UpdateEvents.Hash event = UpdateEvents.begin(new UpdateEvents.Hash());
+            try {
+                byte[] digest = bufferPool.digest(Paths.get(filePath), algorithm);
+                commit(event, null, filePath, "ok");
+                return String.format("%0"+ (digest.length * 2) +"x", new BigInteger(1, digest));
+            } catch (Exception e) {
+                commit(event, null, null, "missing");
+            }
+            return null;
+        }
+
+        private String shortHash(String hash) {
+            return hash.substring(0, Math.min(12, hash.length()));
+        }
+
+        // 从 zip 中解压第一个匹配正则表达式的文件
+        public boolean unzip(String zipFilePath, String regex, String destPath) {
+            try {
+                return unzipEntry(Paths.get(zipFilePath), Pattern.compile(regex), Paths.get(destPath), bufferPool);
+            } catch (IOException e) {
+                log(logLevel.WARN, e.getMessage());
+            }
+            return false;
+        }
+
+        // 获取部分文件直链
+        public String getFileUrl(String _url, String matchFileName, String matchLoader, String matchVersion, String matchVersionType) {
+            // 移除 URL 最后的斜杠
+            String url = _url.replaceAll("/$", "");
+
+            if(url.contains("://github.com/") && url.endsWith("/actions")){ // GitHub 自动构建
+                _nowParser = "[GitHub_Actions] ";
+                // 获取路径 "/ApliNi/Chat2QQ"
+                Matcher matcher = Pattern.compile("/([^/]+)/([^/]+)$").matcher(url.replaceAll("/actions$", ""));
+                if(matcher.find()){
+                    // https://api.github.com/repos/ApliNi/Chat2QQ/actions/artifacts
+                    // 获取所有构建
+                    String data = httpGet("https://api.github.com/repos" + matcher.group(0) + "/actions/artifacts");
+                    if(data == null){return null;}
+                    Map<?, ?> map = (Map<?, ?>) new Gson().fromJson(data, HashMap.class);
+                    ArrayList<?> artifacts = (ArrayList<?>) map.get("artifacts");
+                    for(Object _li : artifacts){
+                        Map<?, ?> li = (Map<?, ?>) _li;
+                        String name = (String) li.get("name");
+                        if(matchFileName.isEmpty() || Pattern.compile(matchFileName).matcher(name).matches()){
+                            if(li.get("workflow_run") == null) continue;
+                            Map<?, ?> workflow_run = (Map<?, ?>) li.get("workflow_run");
+                            long workflowId = ((Number) workflow_run.get("id")).longValue();
+                            long id = ((Number) li.get("id")).longValue();
+                            // 需要认证
+                            // https://github.com/ApliNi/Chat2QQ/actions/runs/{workflowId}/artifacts/{id}
+                            // String dUrl = "https://github.com" + matcher.group(0) + "/actions/runs/" + workflowId + "/artifacts/" + id;
+                            String dUrl = "https://nightly.link" + matcher.group(0) + "/actions/runs/" + workflowId + "/" + name + ".zip";
+                            log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                            return dUrl;
+                        }
+                    }
+                    log(logLevel.WARN, _nowParser + m.piece(m.debugNoFileMatching, url));
+                    return null;
+                }
+                log(logLevel.WARN, _nowParser + m.piece(m.debugNoRepositoryPath, url));
+                return null;
+            }
+
+            else if(url.contains("://github.com/")){ // GitHub 发布
+                _nowParser = "[GitHub] ";
+                // 获取路径 "/ApliNi/Chat2QQ"
+                Matcher matcher = Pattern.compile("/([^/]+)/([^/]+)$").matcher(url);
+                if(matcher.find()){
+                    // 是否允许下载预发布: 获取所有发布, 否则获取一个最新版本
+                    String data = httpGet("https://api.github.com/repos" + matcher.group(0) + (c_getPreRelease ? "/releases" : "/releases/latest"));
+                    if(data == null){return null;}
+                    Map<?, ?> li = parseGitHubAsset(data, c_getPreRelease, matchFileName);
+                    if(li != null){
+                        String dUrl = (String) li.get("browser_download_url");
+                        // "digest": "sha256:..."
+                        if(li.get("digest") instanceof String digest && digest.startsWith("sha256:")){
+                            upstreamHash = "SHA-256:"+ digest.substring(7);
+                        }
+                        log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                        return dUrl;
+                    }
+                    log(logLevel.WARN, "[GitHub] "+ m.piece(m.debugNoFileMatching, url));
+                    return null;
+                }
+                log(logLevel.WARN, "[GitHub] "+ m.piece(m.debugNoRepositoryPath, url));
+                return null;
+            }
+
+            else if(url.contains("://ci.")){ // Jenkins
+                _nowParser = "[Jenkins] ";
+                // https://ci.viaversion.com/view/ViaBackwards/job/ViaBackwards-DEV/lastSuccessfulBuild/artifact/build/libs/ViaBackwards-4.10.0-23w51b-SNAPSHOT.jar
+                String data = httpGet(url +"/lastSuccessfulBuild/api/json");
+                if(data == null){return null;}
+                Map<?, ?> li = parseJenkinsArtifact(data, matchFileName);
+                if(li != null){
+                    String dUrl = url +"/lastSuccessfulBuild/artifact/"+ li.get("relativePath");
+                    log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                    return dUrl;
+                }
+                log(logLevel.WARN, "[Jenkins] "+ m.piece(m.debugNoFileMatching, url));
+                return null;
+            }
+
+            else if(url.contains("://www.spigotmc.org/")){ // Spigot 页面
+                _nowParser = "[Spigot] ";
+                // 获取插件 ID
+                Matcher matcher = Pattern.compile("([0-9]+)$").matcher(url);
+                if(matcher.find()){
+                    String dUrl = "https://api.spiget.org/v2/resources/"+ matcher.group(1) +"/download";
+                    log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                    return dUrl;
+                }
+                log(logLevel.WARN, "[Spigot] "+ m.piece(m.debugErrUrlResolveNoID, url));
+                return null;
+            }
+
+            else if(url.contains("://modrinth.com/")){ // Modrinth 页面
+                _nowParser = "[Modrinth] ";
+                Matcher matcher = Pattern.compile("/([^/]+)$").matcher(url);
+                if(matcher.find()) {
+                    String data = httpGet("https://api.modrinth.com/v2/project"+ matcher.group(0) +"/version");
+                    if(data == null) return null;
+                    Map<?, ?> file = parseModrinthFile(data, matchLoader, matchVersion, matchVersionType, matchFileName);
+                    if(file != null){
+                        String dUrl = (String) file.get("url");
+                        // "hashes": {"sha1": "...", "sha512": "..."}
+                        if(file.get("hashes") instanceof Map<?, ?> hashes && hashes.get("sha1") instanceof String sha1){
+                            upstreamHash = "SHA-1:"+ sha1;
+                        }
+                        log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                        return dUrl;
+                    }
+                    log(logLevel.WARN, "[Modrinth] "+ m.piece(m.debugNoFileMatching, url));
+                    return null;
+                }
+                log(logLevel.WARN, "[Modrinth] "+ m.piece(m.debugErrUrlResolveNoName, url));
+                return null;
+            }
+
+            else if(url.contains("://dev.bukkit.org/")){ // Bukkit 页面
+                _nowParser = "[Bukkit] ";
+                String dUrl = url +"/files/latest";
+                log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                return dUrl;
+            }
+
+            else if(url.contains("://builds.guizhanss.com/")){ // 鬼斩构建站
+                _nowParser = "[鬼斩构建站] ";
+                // https://builds.guizhanss.com/SlimefunGuguProject/AlchimiaVitae/master
+
+                // 获取路径 "/ApliNi/plugin/master"
+                Matcher matcher = Pattern.compile("/([^/]+)/([^/]+)/([^/]+)$").matcher(url);
+                if(matcher.find()){
+                    // 此部分注释的代码被新的 API 替代
+//                    // 获取所有发布中的第一个版本
+//                    String data = httpGet("https://builds.guizhanss.com/api/builds" + matcher.group(0));
+//                    if(data == null){return null;}
+//                    ArrayList<?> arr = (ArrayList<?>) new Gson().fromJson(data, HashMap.class).get("data");
+//                    Map<?, ?> map = (Map<?, ?>) arr.get(arr.size() - 1); // 获取最后一项
+//
+//                    String dUrl = "https://builds.guizhanss.com/r2"+ matcher.group(0) +"/"+ map.get("target");
+
+                    // 现在可以获取直连
+                    String dUrl = "https://builds.guizhanss.com/api/download"+ matcher.group(0) +"/latest";
+                    log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                    return dUrl;
+                }
+                log(logLevel.WARN, _nowParser + m.piece(m.debugNoRepositoryPath, url));
+                return null;
+            }
+
+            else if(url.contains("://www.minebbs.com/")){   // MineBBS
+                // https://www.minebbs.com/resources/coreprotect-coi.7320/download
+                _nowParser = "[MineBBS] ";
+                return url + "/download";
+            }
+
+            else if(url.contains("://legacy.curseforge.com/")){ // CurseForge 页面
+                _nowParser = "[CurseForge] ";
+                // https://legacy.curseforge.com/minecraft/bukkit-plugins/dynmap
+                // data-project-id="31620"
+                // https://legacy.curseforge.com/minecraft/bukkit-plugins/dynmap/download/4632182/file
+
+                String html = httpGet(url); // 下载 html 网页, 获取 project-id
+                if(html == null){return null;}
+                String[] lines = html.split("<a"); // 按每个 a 标签进行分割
+                for(String li : lines){
+                    Matcher matcher = Pattern.compile("data-project-id=\"([0-9]+)\"").matcher(li);
+                    if(matcher.find()){
+                        String data = httpGet("https://api.curseforge.com/servermods/files?projectIds="+ matcher.group(1));
+                        if(data == null){return null;}
+                        ArrayList<?> arr = (ArrayList<?>) new Gson().fromJson(data, ArrayList.class);
+                        Map<?, ?> map = (Map<?, ?>) arr.get(arr.size() - 1); // 获取最后一项
+                        String dUrl = (String) map.get("downloadUrl");
+                        log(logLevel.DEBUG, _nowParser + m.piece(m.debugGetVersion, dUrl));
+                        return dUrl;
+                    }
+                }
+                log(logLevel.WARN, _nowParser + m.piece(m.debugErrNoID, url));
+                return null;
+            }
+
+            else{ // 没有匹配的项
+                _nowParser = "[URL] ";
+                log(logLevel.DEBUG, _nowParser + _url);
+                return _url;
+            }
+        }
+
+        // 结束并提交 JFR 事件, file 不为空时记录文件大小
+        private void commit(UpdateEvents.StageEvent event, String url, String file, String outcome) {
+            event.end();
+            if(!event.shouldCommit()) return;
+            event.entry = c_file;
+            event.parser = _nowParser.trim();
+            if(url != null){
+                try {
+                    event.host = URI.create(url).getHost();
+                } catch (IllegalArgumentException ignored) {}
+            }
+            event.bytes = file != null ? new File(file).length() : 0;
+            event.outcome = outcome;
+            event.commit();
+        }
+
+        // 项目已是最新版本或已完成更新
+        private void succeed() {
+            cycle._fail.decrementAndGet();
+            stats.markSuccess(c_file);
+        }
+
+        // 记录下载量
+        private void addBytes(long bytes) {
+            cycle._allFileSize.addAndGet(bytes);
+            if(c_file != null) stats.addBytes(c_file, bytes);
+        }
+
+        // 如果 in1 为空则选择 in2, 否则选择 in1
+        public Object SEL(Object in1, Object in2) {
+            if(in1 == null){
+                return in2;
+            }
+            return in1;
+        }
+
+        // 获取 HTTP 请求实例
+        public Response fetch(String url, boolean head, String proxyReqType){
+            cycle._allRequests.incrementAndGet();
+            // HTTP 客户端
+            OkHttpClient.Builder client = new OkHttpClient.Builder();
+
+            // API 请求使用磁盘缓存, 遵循服务器返回的 Cache-Control 与 ETag. 下载文件不使用缓存
+            Cache cache = apiCache;
+            boolean useCache = cache != null && !head && proxyReqType.equals("reqApi");
+            if(useCache){
+                client.cache(cache);
+            }
+
+            // 启用网络代理
+            if(!config.getString("proxy.type", "DIRECT").equals("DIRECT") &&
+                    config.getBoolean("proxy." + proxyReqType, true)){
+                log(logLevel.DEBUG, "[HTTP] [proxyReqType] " + proxyReqType);
+                Proxy.Type type = Proxy.Type.valueOf(config.getString("proxy.type", "DIRECT").toUpperCase());
+                String host = config.getString("proxy.host", "127.0.0.1");
+                int port = config.getInt("proxy.port", 7890);
+                Proxy proxy = new Proxy(type, InetSocketAddress.createUnresolved(host, port));
+                client.proxy(proxy);
+            }
+
+            // 禁用 SSL 验证
+            if(!config.getBoolean("sslVerify", true)){
+                // 设置自定义的 TrustManager 和 HostnameVerifier
+                try {
+                    // 创建一个信任所有证书的信任管理器
+                    X509TrustManager trustManager = new X509TrustManager() {
+                        @Override
+                        public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+                        @Override
+                        public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+                        @Override
+                        public X509Certificate[] getAcceptedIssuers() {
+                            return new X509Certificate[0];
+                        }
+                    };
+
+                    SSLContext sslContext = SSLContext.getInstance("SSL");
+                    sslContext.init(null, new TrustManager[] { trustManager }, new SecureRandom());
+                    // 使用信任所有证书的 SSLSocketFactory
+                    client.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+
+                } catch (Exception e) {
+                    log(logLevel.NET_WARN, "[HTTP] [sslVerify: false]" + e.getMessage());
+                }
+            }
+
+            // 请求实例
+            Request.Builder request = new Request.Builder().url(url);
+            // 请求方式
+            if(head){request.head();}
+            // 允许使用已过期的缓存, 关闭前更新优先使用上一次检查留下的响应
+            int maxStale = cycle.shutdown ? config.getInt("shutdownUpdate.maxStale", 3600) : config.getInt("apiCache.maxStale", 0);
+            if(useCache && maxStale > 0){
+                request.cacheControl(new CacheControl.Builder().maxStale(maxStale, TimeUnit.SECONDS).build());
+            }
+            // 添加请求头
+            List<?> list = (List<?>) config.get("setRequestProperty");
+            if(list != null){
+                for(Object _li : list) {
+                    Map<?, ?> li = (Map<?, ?>) _li;
+                    request.header((String) li.get("name"), (String) li.get("value"));
+                }
+            }
+
+            // 镜像: 匹配规则时每次尝试重新选择地址, 失败的地址在 failCooldown 内不再使用
+            String resolver = _nowParser.replaceAll("[\\[\\] ]", "");
+            List<MirrorSelector.Candidate> candidates = mirrors.candidates(resolver, proxyReqType, url);
+            boolean race = config.getString("mirrors.mode", "race").equals("race");
+            long cooldown = config.getLong("mirrors.failCooldown", 300) * 1000;
+            if(race && mirrors.needsRace(candidates, config.getLong("mirrors.raceInterval", 3600) * 1000)){
+                race(client, request.build(), candidates, proxyReqType);
+            }
+            boolean fallback = false;   // 上一个地址失败, 立即使用下一个地址
+            boolean rateLimited = false;    // 上一次请求返回了 429
+
+            Response res = null;
+            for(int i = 0; i < config.getInt("fetchErrRetry", 4); i++){
+                if(cycle.isStopped()) break;
+                if(i > 0 && !fallback){
+                    if(c_file != null) stats.addRetry(c_file);
+                    try {
+                        long delay = config.getInt("fetchErrRetryDelay", 5) + ((i - 1) * 2L);
+                        metrics.addRetryWait(delay);
+                        if(rateLimited) metrics.addRateLimitWait(delay);
+                        log(logLevel.NET_WARN, "[HTTP] "+ m.piece(m.networkErrorRetry, delay));
+                        // 等待重试, 被停止时立即返回
+                        if(cycle.stopSignal.await(delay, TimeUnit.SECONDS)) break;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                MirrorSelector.Candidate mirror = candidates.isEmpty() ? null : mirrors.pick(candidates, race, cooldown);
+                String target = mirror == null ? url : mirror.url();
+                if(mirror != null){
+                    log(logLevel.DEBUG, "[HTTP] [mirror] "+ target);
+                }
+                fallback = false;
+                rateLimited = false;
+                try{
+                    Call call = client.build().newCall(request.url(target).build());
+                    this.call = call;
+                    if(cycle.isStopped()){  // 在创建请求时被停止
+                        call.cancel();
+                    }
+                    UpdateEvents.Fetch fetchEvent = UpdateEvents.begin(new UpdateEvents.Fetch());
+                    long start = System.nanoTime();
+                    try {
+                        res = call.execute();
+                    } catch (IOException e) {
+                        commit(fetchEvent, target, null, cycle.isStopped() ? "cancelled" : e.getClass().getSimpleName());
+                        throw e;
+                    }
+                    metrics.observeRequest(resolver, proxyReqType, System.nanoTime() - start);
+                    if(res.cacheResponse() != null){
+                        if(res.networkResponse() == null){
+                            cycle._apiCacheHits.incrementAndGet();
+                        }
+                        log(logLevel.DEBUG, "[HTTP] [cache] "+ (res.networkResponse() == null ? "hit" : "revalidated") +" "+ url);
+                    }
+                    commit(fetchEvent, target, null, res.isSuccessful() ? "ok" : "http_" + res.code());
+                    if (!res.isSuccessful()) {
+                        rateLimited = res.code() == 429;
+                        res.close();
+                        fallback = mirrorFailed(mirror, candidates, cooldown);
+                        continue;
+                    }
+                    if(mirror != null && res.networkResponse() != null){
+                        mirrors.success(mirror, System.nanoTime() - start);
+                    }
+                    return res;
+                } catch (IOException e) {
+                    if(cycle.isStopped()) break;   // 被取消的请求不再输出警告
+                    log(logLevel.NET_WARN, "[HTTP] " + e.getMessage());
+                    fallback = mirrorFailed(mirror, candidates, cooldown);
+                }
+            }
+            if(res != null) res.close();
+            return null;
+        }
+
+        // 记录镜像地址的失败, 返回是否还有其他可以立即尝试的地址
+        private boolean mirrorFailed(MirrorSelector.Candidate mirror, List<MirrorSelector.Candidate> candidates, long cooldown) {
+            if(mirror == null) return false;
+            mirrors.failure(mirror);
+            return mirrors.hasUsable(candidates, cooldown);
+        }
+
+        // 镜像比赛: 同时向所有地址发送 HEAD 请求 (API 请求使用只读取第一个字节的 GET), 记录每个地址的延迟
+        // 等待第一个成功的响应后返回, 较慢的响应在后台完成. 超过 raceTimeout 的地址记为失败
+        private void race(OkHttpClient.Builder builder, Request request, List<MirrorSelector.Candidate> candidates, String proxyReqType) {
+            long timeout = config.getLong("mirrors.raceTimeout", 3000);
+            OkHttpClient client = builder.build().newBuilder()
+                    .cache(null)
+                    .callTimeout(timeout, TimeUnit.MILLISECONDS)
+                    .build();
+            CountDownLatch first = new CountDownLatch(1);
+            AtomicInteger pending = new AtomicInteger(candidates.size());
+            long start = System.nanoTime();
+            for(MirrorSelector.Candidate c : candidates){
+                cycle._allRequests.incrementAndGet();
+                Request.Builder probe = request.newBuilder().url(c.url());
+                if(proxyReqType.equals("reqDownload")){
+                    probe.head();
+                }else{
+                    probe.get().header("Range", "bytes=0-0");
+                }
+                client.newCall(probe.build()).enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        // 超时也记为失败, 无法访问的地址在 failCooldown 内不再使用
+                        mirrors.failure(c);
+                        if(pending.decrementAndGet() == 0) first.countDown();
+                    }
+
+                    @Override
+                    public void onResponse(Call call, Response res) {
+                        try(res){
+                            if(res.isSuccessful()){
+                                mirrors.success(c, System.nanoTime() - start);
+                                first.countDown();
+                            }else{
+                                mirrors.failure(c);
+                            }
+                        }
+                        if(pending.decrementAndGet() == 0) first.countDown();
+                    }
+                });
+            }
+            try {
+                first.await(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mirrors.markRaced(candidates);
+            MirrorSelector.Candidate best = mirrors.pick(candidates, true, config.getLong("mirrors.failCooldown", 300) * 1000);
+            double latency = mirrors.latency(best);
+            log(logLevel.DEBUG, "[HTTP] "+ m.piece(m.mirrorRace, best.name(), Double.isNaN(latency) ? "-" : Math.round(latency / 1_000_000)));
+        }
+
+        // http 请求获取字符串
+        public String httpGet(String url) {
+            log(logLevel.DEBUG, "[HTTP] [httpGet] " + url);
+            try(Response res = fetch(url, false, "reqApi")){
+                if(res == null) return null;
+                return res.body().string();
+            } catch (IOException e) {
+                log(logLevel.NET_WARN, "[HTTP] " + e.getMessage());
+            }
+            return null;
+        }
+
+        // 下载文件到指定目录
+        public boolean downloadFile(String url, String path) {
+            log(logLevel.DEBUG, "[HTTP] [downloadFile] " + url);
+            try(Response res = fetch(url, false, "reqDownload")){
+                if(res == null) return false;
+                updateBandwidth();
+                bufferPool.transfer(bandwidth.wrap(res.body().byteStream()), Paths.get(path));
+                return true;
+            } catch (IOException e) {
+                log(logLevel.NET_WARN, "[HTTP] " + e.getMessage());
+            }
+            return false;
+        }
+
+        // 下载压缩包并直接从数据流中解压第一个匹配正则表达式的文件, 其余内容被丢弃
+        public boolean downloadUnzip(String url, String regex, String destPath) {
+            log(logLevel.DEBUG, "[HTTP] [downloadUnzip] " + url);
+            Pattern pattern = Pattern.compile(regex);
+            try(Response res = fetch(url, false, "reqDownload")){
+                if(res == null) return false;
+                updateBandwidth();
+                CountingInputStream counter = new CountingInputStream(bandwidth.wrap(res.body().byteStream()));
+                try {
+                    if(unzipStream(counter, pattern, Paths.get(destPath), bufferPool)){
+                        return true;
+                    }
+                    log(logLevel.WARN, m.zipDecompressionFailed);
+                } finally {
+                    addBytes(counter.getCount());
+                }
+            } catch (IOException e) {
+                log(logLevel.NET_WARN, "[HTTP] " + e.getMessage());
+            }
+            return false;
+        }
+
+        // 根据当前的时间段, 在线玩家数量与 MSPT 更新下载限速
+        private void updateBandwidth() {
+            long limit = bandwidthLimit();
+            if(bandwidth.setRate(limit * 1024)){
+                log(logLevel.DEBUG, "[HTTP] "+ m.piece(m.bandwidthLimit, limit));
+            }
+        }
+
+        public void log(logLevel level, String text){
+            cycle.log(level, _fileName, text);
+        }
+
+        // 获取已格式化的时间
+        public String nowDate(){
+            LocalDateTime now = LocalDateTime.now();
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            return now.format(formatter);
+        }
+    }
+
+    // 记录已读取的字节数, 用于统计流式解压时的下载量
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if(n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    // 用户是否启用了这个日志等级, 每次调用时读取配置
+    static boolean isLogEnabled(Config config, logLevel level){
+        List<String> userLogLevel = config.getStringList("logLevel");
+        if(userLogLevel.isEmpty()){
+            userLogLevel = List.of("DEBUG", "MARK", "INFO", "WARN", "NET_WARN");
+        }
+        return userLogLevel.contains(level.name);
+    }
+
+    // 打开 jar 文件并读取中央目录, 文件不完整或无法打开时返回 false
+    static boolean jarIntact(Path file){
+        try {
+            JarFile jarFile = new JarFile(file.toFile());
+            jarFile.close();
+            return true;
+        } catch (ZipException e) { // 文件不完整
+            return false;
+        } catch (Exception e) { // 其他异常
+            return false;
+        }
+    }
+
+    // 通过 zip 的中央目录找到第一个匹配的文件并解压到 dest, 没有匹配的文件时返回 false
+    static boolean unzipEntry(Path zip, Pattern pattern, Path dest, BufferPool pool) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                // 跳过目录
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (pattern.matcher(entry.getName()).matches()) {
+                    if (dest.getParent() != null) {
+                        Files.createDirectories(dest.getParent());
+                    }
+                    try (InputStream is = zipFile.getInputStream(entry)) {
+                        pool.transfer(is, dest);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // 顺序读取 zip 数据流, 解压第一个匹配的文件到 dest, 其余内容被丢弃. 没有匹配的文件时返回 false
+    static boolean unzipStream(InputStream in, Pattern pattern, Path dest, BufferPool pool) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                // 跳过目录
+                if (entry.isDirectory() || !pattern.matcher(entry.getName()).matches()) {
+                    continue;
+                }
+                // ZipInputStream 会在读取到条目末尾时校验 CRC
+                pool.transfer(zis, dest);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 以下方法解析 getFileUrl 中 API 的响应, 返回第一个匹配的文件, 没有匹配时返回 null
+
+    // GitHub: releases 为 true 时响应是所有发布的列表, 使用其中的第一个版本, 否则是 releases/latest
+    static Map<?, ?> parseGitHubAsset(String data, boolean releases, String matchFileName){
+        Map<?, ?> map = releases
+                ? (Map<?, ?>) new Gson().fromJson(data, ArrayList.class).get(0)
+                : new Gson().fromJson(data, HashMap.class);
+        // 遍历发布文件列表
+        for(Object _li : (ArrayList<?>) map.get("assets")){
+            Map<?, ?> li = (Map<?, ?>) _li;
+            String fileName = (String) li.get("name");
+            if(matchFileName.isEmpty() || Pattern.compile(matchFileName).matcher(fileName).matches()){
+                return li;
+            }
+        }
+        return null;
+    }
+
+    // Jenkins: lastSuccessfulBuild/api/json
+    static Map<?, ?> parseJenkinsArtifact(String data, String matchFileName){
+        Map<?, ?> map = new Gson().fromJson(data, HashMap.class);
+        // 遍历发布文件列表
+        for(Object _li : (ArrayList<?>) map.get("artifacts")){
+            Map<?, ?> li = (Map<?, ?>) _li;
+            String fileName = (String) li.get("fileName");
+            if(matchFileName.isEmpty() || Pattern.compile(matchFileName).matcher(fileName).matches()){
+                return li;
+            }
+        }
+        return null;
+    }
+
+    // Modrinth: 按 loader, 游戏版本与版本类型筛选, 为空的条件不检查
+    static Map<?, ?> parseModrinthFile(String data, String matchLoader, String matchVersion, String matchVersionType, String matchFileName){
+        ArrayList<?> versions = new Gson().fromJson(data, ArrayList.class);
+        // 遍历版本列表
+        for(Object _version : versions){
+            Map<?, ?> version = (Map<?, ?>) _version;
+            // 检查平台 loaders: []
+            if(!matchLoader.isEmpty()){
+                ArrayList<String> loaders = new ArrayList<>();
+                for(Object loader : (ArrayList<?>) version.get("loaders")){
+                    loaders.add(((String) loader).toLowerCase());
+                }
+                if(!loaders.contains(matchLoader)) continue;
+            }
+            // 检查版本 game_versions: []
+            if(!matchVersion.isEmpty()){
+                ArrayList<String> game_versions = new ArrayList<>();
+                for(Object game_version : (ArrayList<?>) version.get("game_versions")){
+                    game_versions.add(((String) game_version).toLowerCase());
+                }
+                if(!game_versions.contains(matchVersion)) continue;
+            }
+            ArrayList<?> files = (ArrayList<?>) version.get("files");
+            // 检查版本类型 version_type: ""
+            if(!matchVersionType.isEmpty()){
+                String version_type = (String) version.get("version_type");
+                if(!matchVersionType.equals(version_type)) continue;
+            }
+            // 遍历发布文件列表
+            for(Object _file : files){
+                Map<?, ?> file = (Map<?, ?>) _file;
+                String fileName = (String) file.get("filename");
+                if(matchFileName.isEmpty() || Pattern.compile(matchFileName).matcher(fileName).matches()){
+                    return file;
+                }
+            }
+        }
+        return null;
+    }
+
+    enum logLevel {
+        // 允许被忽略的 INFO
+        DEBUG("", "DEBUG"),
+        // 不可被忽略的 INFO
+        INFO("", "INFO"),
+        // 用于标记任务完成
+        MARK("§a", "MARK"),
+        // 警告
+        WARN("§e", "WARN"),
+        // 网络请求模式警告
+        NET_WARN("§e", "NET_WARN"),
+        ;
+        private final String color;
+        private final String name;
+        logLevel(String color, String name) {
+            this.color = color;
+            this.name = name;
+        }
+    }
+
+    // 创建目录
+    public String getPath(String path) {
+        Path directory = Paths.get(path);
+        try {
+            Files.createDirectories(directory);
+            return directory + "/";
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // 显示消息
+    public static class m {
+        public static String updateCheckIntervalTooLow;
+        public static String timer;
+        public static String commandReloadOnUpdating;
+        public static String commandReloadOnStopping;
+        public static String commandReloadOK;
+        public static String commandRepeatedRunUpdate;
+        public static String commandUpdateStart;
+        public static String commandFullLog;
+        public static String commandStopUpdateIng;
+        public static String stopUpdate;
+        public static String stopUpdateTimeout;
+        public static String repeatedRunUpdate;
+        public static String updateStart;
+        public static String configErrList;
+        public static String configErrUpdate;
+        public static String configErrMissing;
+        public static String updateChecking;
+        public static String updateErrParsingDUrl;
+        public static String updateTempAlreadyLatest;
+        public static String updateSkipInterval;
+        public static String updateStartSlice;
+        public static String timerRolling;
+        public static String updateFulSkip;
+        public static String updateErrDownload;
+        public static String updateZipFileCheck;
+        public static String updateFileAlreadyLatest;
+        public static String updateFulSizeDifference;
+        public static String updateFul;
+        public static String updateFulTime;
+        public static String updateFulFail;
+        public static String updateFulUpdate;
+        public static String updateFulOK;
+        public static String updateFulNetRequest;
+        public static String updateFulDownloadFile;
+        public static String updateFulApiCache;
+        public static String updateFulStore;
+        public static String updateStoreHit;
+        public static String storeErr;
+        public static String updateFulPeer;
+        public static String peerOriginStart;
+        public static String peerErr;
+        public static String peerErrOrigin;
+        public static String peerManifest;
+        public static String peerHit;
+        public static String peerErrArtifact;
+        public static String peerPublishMissing;
+        public static String receiveStart;
+        public static String receiveErr;
+        public static String tokenMissing;
+        public static String receiveInstalled;
+        public static String logReloadOK;
+        public static String debugGetVersion;
+        public static String debugNoFileMatching;
+        public static String debugNoRepositoryPath;
+        public static String debugErrUrlResolveNoID;
+        public static String debugErrUrlResolveNoName;
+        public static String debugErrNoID;
+        public static String urlInvalid;
+        public static String networkErrorRetry;
+        public static String zipDecompressionFailed;
+        public static String updateFulBuffer;
+        public static String updateExecutor;
+        public static String commandStatus;
+        public static String commandStatusIdle;
+        public static String commandStatusState;
+        public static String commandStats;
+        public static String metricsStart;
+        public static String metricsErr;
+        public static String commandStatsEmpty;
+        public static String commandStatsNotFound;
+        public static String commandStatsEntry;
+        public static String commandStatsStage;
+        public static String commandStatusStage;
+        public static String commandCheckStart;
+        public static String checkStart;
+        public static String checkFul;
+        public static String checkStateUpdate;
+        public static String checkStateLatest;
+        public static String checkStateUnknown;
+        public static String checkStateFail;
+        public static String checkByHash;
+        public static String checkByUrl;
+        public static String checkByFeature;
+        public static String checkNoRecord;
+        public static String checkNoFeature;
+        public static String checkSameRecord;
+        public static String pushQueued;
+        public static String pushBackend;
+        public static String pushErrBackend;
+        public static String commandStatusPush;
+        public static String commandStatusPushNone;
+        public static String commandStatusBackend;
+        public static String commandStatusBackendErr;
+        public static String pushStateInstalled;
+        public static String pushStateFailed;
+        public static String enableTime;
+        public static String mirrorRace;
+        public static String mirrorErrRule;
+        public static String commandStatusMirror;
+        public static String commandStatusMirrorEntry;
+        public static String mirrorStateFailed;
+        public static String updateFulThrottle;
+        public static String updateFulBandwidth;
+        public static String bandwidthLimit;
+        public static String shutdownUpdateStart;
+        public static String shutdownUpdateWait;
+        public static String shutdownUpdateTimeout;
+        // 初始化完成前 (或初始化失败时) 配置可能尚未加载, 使用默认值
+        public static String enableErr = "初始化失败, 更新检查不会运行: %1";
+        public static String commandNotReady = "插件正在初始化, 请稍后再试";
+
+        // 处理消息模板
+        public static String piece(String message, Object in1){return message.replace("%1", ""+ in1);}
+        public static String piece(String message, Object in1, Object in2){return piece(message, in1).replace("%2", ""+ in2);}
+        public static String piece(String message, Object in1, Object in2, Object in3){return piece(message, in1, in2).replace("%3", ""+ in3);}
+        public static String piece(String message, Object in1, Object in2, Object in3, Object in4){return piece(message, in1, in2, in3).replace("%4", ""+ in4);}
+        public static String piece(String message, Object in1, Object in2, Object in3, Object in4, Object in5){return piece(message, in1, in2, in3, in4).replace("%5", ""+ in5);}
+    }
+
+    public String gm(String key, String _default){
+        return config.getString("message."+ key, _default);
+    }
+    public void loadMessage(){
+        m.updateCheckIntervalTooLow = gm("updateCheckIntervalTooLow", "### 更新检查间隔过低将造成性能问题! ###");
+        m.timer = gm("timer", "更新检查将在 %1 秒后运行, 并以每 %2 秒的间隔重复运行");
+        m.commandReloadOnUpdating = gm("commandReloadOnUpdating", "当前正在运行更新, 配置重载将被推迟");
+        m.commandReloadOnStopping = gm("commandReloadOnStopping", "正在停止当前更新, 请在停止后重新运行 /aup reload");
+        m.commandReloadOK = gm("commandReloadOK", "已完成重载");
+        m.commandRepeatedRunUpdate = gm("commandRepeatedRunUpdate", "已有一个未完成的更新正在运行");
+        m.commandUpdateStart = gm("commandUpdateStart", "更新开始运行!");
+        m.commandFullLog = gm("commandFullLog", "完整日志:");
+        m.commandStopUpdateIng = gm("commandStopUpdateIng", "正在停止当前更新...");
+        m.stopUpdate = gm("stopUpdate", "已停止当前更新");
+        m.stopUpdateTimeout = gm("stopUpdateTimeout", "部分任务未能在 %1 秒内停止, 不再等待");
+        m.repeatedRunUpdate = gm("repeatedRunUpdate", "### 更新程序重复启动或出现错误? ###");
+        m.updateStart = gm("updateStart", "[## 开始运行自动更新 ##]");
+        m.configErrList = gm("configErrList", "更新列表配置错误? ");
+        m.configErrUpdate = gm("configErrUpdate", "更新列表配置错误? 项目为空");
+        m.configErrMissing = gm("configErrMissing", "更新列表配置错误? 缺少基本配置");
+        m.updateChecking = gm("updateChecking", "正在检查更新...");
+        m.updateErrParsingDUrl = gm("updateErrParsingDUrl", "解析文件直链时出现错误, 将跳过此更新");
+        m.updateTempAlreadyLatest = gm("updateTempAlreadyLatest", "[缓存] 文件已是最新版本");
+        m.updateStartSlice = gm("updateStartSlice", "滚动模式: 正在检查第 %1 / %2 个分片");
+        m.timerRolling = gm("timerRolling", "更新检查将在 %1 秒后运行, 滚动模式: 分为 %2 个分片, 平均每 %3 秒检查一个分片");
+        m.updateSkipInterval = gm("updateSkipInterval", "[间隔] 距离下一次检查还有 %1 小时, 跳过");
+        m.updateFulSkip = gm("updateFulSkip", "跳过: %1, ");
+        m.updateErrDownload = gm("updateErrDownload", "下载文件时出现异常, 将跳过此更新");
+        m.updateZipFileCheck = gm("updateZipFileCheck", "[Zip 完整性检查] 文件不完整, 将跳过此更新");
+        m.updateFileAlreadyLatest = gm("updateFileAlreadyLatest", "文件已是最新版本");
+        m.updateFulSizeDifference = gm("updateFulSizeDifference", "更新完成 [%1MB] -> [%2MB]");
+        m.updateFul = gm("updateFul", "[## 更新全部完成 ##]");
+        m.updateFulTime = gm("updateFulTime", "耗时: %1 秒");
+        m.updateFulFail = gm("updateFulFail", "失败: %1, ");
+        m.updateFulUpdate = gm("updateFulUpdate", "更新: %1, ");
+        m.updateFulOK = gm("updateFulOK", "成功: %1");
+        m.updateFulNetRequest = gm("updateFulNetRequest", "网络请求: %1, ");
+        m.updateFulDownloadFile = gm("updateFulDownloadFile", "下载文件: %1MB");
+        m.updateFulApiCache = gm("updateFulApiCache", "API 缓存命中: %1, ");
+        m.updateFulStore = gm("updateFulStore", "共享存储命中: %1, ");
+        m.updateStoreHit = gm("updateStoreHit", "从共享存储获取文件: %1");
+        m.storeErr = gm("storeErr", "共享存储不可用: %1");
+        m.updateFulPeer = gm("updateFulPeer", "源节点: %1, ");
+        m.peerOriginStart = gm("peerOriginStart", "对等缓存源节点已启动: http://%1:%2, 清单中有 %3 个项目");
+        m.peerErr = gm("peerErr", "对等缓存不可用: %1");
+        m.peerErrOrigin = gm("peerErrOrigin", "无法读取源节点的清单, 本轮将直接请求上游: %1");
+        m.peerManifest = gm("peerManifest", "源节点清单: %1 个项目");
+        m.peerHit = gm("peerHit", "从源节点获取文件: %1");
+        m.peerErrArtifact = gm("peerErrArtifact", "从源节点下载文件失败, 将直接从上游下载: %1");
+        m.receiveStart = gm("receiveStart", "接收模式已启动: http://%1:%2");
+        m.tokenMissing = gm("tokenMissing", "访问令牌 %1 为空, 相关功能不会启动. 请设置一个随机的长字符串");
+        m.receiveErr = gm("receiveErr", "无法启动接收模式: %1");
+        m.receiveInstalled = gm("receiveInstalled", "收到推送的文件: %1, 将在重启后生效");
+        m.peerPublishMissing = gm("peerPublishMissing", "清单中没有这个版本, 重新下载以提供给跟随节点");
+        m.logReloadOK = gm("logReloadOK", "已完成重载");
+        m.debugGetVersion = gm("debugGetVersion", "找到版本: %1");
+        m.debugNoFileMatching = gm("debugNoFileMatching", "没有匹配的文件: %1");
+        m.debugNoRepositoryPath = gm("debugNoRepositoryPath", "未找到存储库路径: %1");
+        m.debugErrUrlResolveNoID = gm("debugErrUrlResolveNoID", "URL 解析错误, 不包含插件 ID?: %1");
+        m.debugErrUrlResolveNoName = gm("debugErrUrlResolveNoName", "URL 解析错误, 未找到项目名称: %1");
+        m.debugErrNoID = gm("debugErrNoID", "未找到项目 ID: %1");
+        m.urlInvalid = gm("urlInvalid", "URL 无效或不规范: %1");
+        m.networkErrorRetry = gm("networkErrorRetry", "网络错误, 等待 %1 秒...");
+        m.zipDecompressionFailed = gm("zipDecompressionFailed", "ZIP 解压失败");
+        m.updateFulBuffer = gm("updateFulBuffer", "缓冲区: 复用 %1 次, 新分配 %2 个");
+        m.updateExecutor = gm("updateExecutor", "运行方式: %1, 并行数量: %2");
+        m.commandStatus = gm("commandStatus", "更新正在运行, 各阶段状态:");
+        m.commandStatusIdle = gm("commandStatusIdle", "当前没有正在运行的更新");
+        m.commandStatusState = gm("commandStatusState", "运行状态: %1");
+        m.metricsStart = gm("metricsStart", "Prometheus 端点已启动: http://%1:%2/metrics");
+        m.metricsErr = gm("metricsErr", "无法启动 Prometheus 端点: %1");
+        m.commandStats = gm("commandStats", "每个项目的总耗时 (按 p95 排序):");
+        m.commandStatsEmpty = gm("commandStatsEmpty", "还没有耗时统计, 请在更新完成后再试");
+        m.commandStatsNotFound = gm("commandStatsNotFound", "没有找到项目: %1");
+        m.commandStatsEntry = gm("commandStatsEntry", "%1: 下载 %2MB, 重试 %3 次, 缓存命中 %4 次");
+        m.commandStatsStage = gm("commandStatsStage", "%1: %2 次, p50 %3ms, p95 %4ms, 最大 %5ms");
+        m.commandStatusStage = gm("commandStatusStage", "%1: 队列 %2, 运行中 %3, 已处理 %4");
+        m.commandCheckStart = gm("commandCheckStart", "正在检查可用的更新, 不会下载文件...");
+        m.checkStart = gm("checkStart", "[## 开始检查可用的更新 ##]");
+        m.checkFul = gm("checkFul", "检查完成, 耗时 %1 秒. 可更新: %2, 已是最新: %3, 无法判断: %4, 失败: %5");
+        m.checkStateUpdate = gm("checkStateUpdate", "[可更新]");
+        m.checkStateLatest = gm("checkStateLatest", "[已是最新]");
+        m.checkStateUnknown = gm("checkStateUnknown", "[无法判断]");
+        m.checkStateFail = gm("checkStateFail", "[失败]");
+        m.checkByHash = gm("checkByHash", "%1: %2 -> %3");
+        m.checkByUrl = gm("checkByUrl", "下载链接: %1 -> %2");
+        m.checkByFeature = gm("checkByFeature", "文件特征: %1 -> %2");
+        m.checkNoRecord = gm("checkNoRecord", "没有更新记录");
+        m.checkNoFeature = gm("checkNoFeature", "无法获取文件特征");
+        m.checkSameRecord = gm("checkSameRecord", "与更新记录一致");
+        m.pushQueued = gm("pushQueued", "已加入推送列表");
+        m.pushBackend = gm("pushBackend", "推送到 %1: 安装 %2, 已是最新 %3, 失败 %4");
+        m.pushErrBackend = gm("pushErrBackend", "无法推送到 %1: %2");
+        m.commandStatusPush = gm("commandStatusPush", "推送状态:");
+        m.commandStatusPushNone = gm("commandStatusPushNone", "还没有推送记录");
+        m.commandStatusBackend = gm("commandStatusBackend", "%1 [%2]: 安装 %3, 已是最新 %4, 失败 %5");
+        m.commandStatusBackendErr = gm("commandStatusBackendErr", "%1 [%2]: 无法推送: %3");
+        m.pushStateInstalled = gm("pushStateInstalled", "已安装");
+        m.pushStateFailed = gm("pushStateFailed", "失败");
+        m.shutdownUpdateStart = gm("shutdownUpdateStart", "服务器正在关闭, 运行关闭前更新 (最长 %1 秒)");
+        m.shutdownUpdateWait = gm("shutdownUpdateWait", "等待正在运行的更新完成...");
+        m.shutdownUpdateTimeout = gm("shutdownUpdateTimeout", "关闭前更新未能在 %1 秒内完成, 已停止");
+        m.updateFulBandwidth = gm("updateFulBandwidth", "限速等待: %1 秒, ");
+        m.bandwidthLimit = gm("bandwidthLimit", "下载限速: %1 KB/s (0 为不限速)");
+        m.updateFulThrottle = gm("updateFulThrottle", "服务器卡顿, 校验阶段降速: %1 次, 等待 %2 秒");
+        m.mirrorRace = gm("mirrorRace", "镜像比赛: 使用 %1 (%2 ms)");
+        m.mirrorErrRule = gm("mirrorErrRule", "镜像规则错误, 已忽略: %1: %2");
+        m.commandStatusMirror = gm("commandStatusMirror", "镜像延迟:");
+        m.commandStatusMirrorEntry = gm("commandStatusMirrorEntry", "%1 -> %2: %3 ms %4");
+        m.mirrorStateFailed = gm("mirrorStateFailed", "[最近失败]");
+        m.enableTime = gm("enableTime", "初始化完成, 耗时 %1 毫秒");
+        m.enableErr = gm("enableErr", "初始化失败, 更新检查不会运行: %1");
+        m.commandNotReady = gm("commandNotReady", "插件正在初始化, 请稍后再试");
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.aplini.autoupdateplugins;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR 事件, 与服务器自身的 JFR 记录一起查看更新过程中每个步骤的耗时
+// 未开启记录时 shouldCommit() 返回 false, 不会填充字段
+public final class UpdateEvents {
+    private UpdateEvents() {}
+
+    @Category({"AutoUpdatePlugins"})
+    @StackTrace(false)
+    public abstract static class StageEvent extends Event {
+        @Label("Entry")
+        @Description("File name of the list entry")
+        public String entry;
+
+        @Label("Parser")
+        public String parser;
+
+        @Label("Host")
+        public String host;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("io.github.aplini.autoupdateplugins.Resolve")
+    @Label("AUP Resolve")
+    @Description("Finding the download link of an entry (getFileUrl)")
+    public static final class Resolve extends StageEvent {}
+
+    @Name("io.github.aplini.autoupdateplugins.Fetch")
+    @Label("AUP Fetch")
+    @Description("A single HTTP request attempt")
+    public static final class Fetch extends StageEvent {}
+
+    @Name("io.github.aplini.autoupdateplugins.Download")
+    @Label("AUP Download")
+    @Description("Downloading a file to the temp directory")
+    public static final class Download extends StageEvent {}
+
+    @Name("io.github.aplini.autoupdateplugins.ZipCheck")
+    @Label("AUP Zip Check")
+    @Description("Opening the downloaded file as a jar to check it is complete")
+    public static final class ZipCheck extends StageEvent {}
+
+    @Name("io.github.aplini.autoupdateplugins.Hash")
+    @Label("AUP Hash")
+    @Description("Hashing a file for duplicate checks")
+    public static final class Hash extends StageEvent {}
+
+    @Name("io.github.aplini.autoupdateplugins.Unzip")
+    @Label("AUP Unzip")
+    @Description("Extracting the zipGet match from a downloaded archive")
+    public static final class Unzip extends StageEvent {}
+
+    @Name("io.github.aplini.autoupdateplugins.Install")
+    @Label("AUP Install")
+    @Description("Moving the new file into the update directory")
+    public static final class Install extends StageEvent {}
+
+    public static <E extends StageEvent> E begin(E event) {
+        event.begin();
+        return event;
+    }
+}
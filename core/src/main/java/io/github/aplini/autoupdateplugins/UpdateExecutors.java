@@ -0,0 +1,65 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 更新任务使用的线程
+// 网络请求与文件 IO 在 Java 21+ 中使用虚拟线程, 否则使用平台线程. 哈希与 zip 检查始终使用平台线程
+// 线程数量由 Pipeline 中每个阶段的线程数量限制
+public final class UpdateExecutors {
+    private final ThreadFactory io;
+    private final ThreadFactory cpu;
+    private final boolean virtual;
+
+    public UpdateExecutors(boolean virtualThreads) {
+        ThreadFactory vt = virtualThreads ? newVirtualThreadFactory() : null;
+        this.virtual = vt != null;
+        this.io = vt != null ? vt : named("AUP-IO");
+        this.cpu = named("AUP-CPU");
+    }
+
+    // 运行一轮更新的协调线程, 只负责分发项目与等待完成
+    public CompletableFuture<Void> runCycle(Runnable task) {
+        return CompletableFuture.runAsync(task, r -> {
+            Thread t = new Thread(r, "AUP-Update");
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    // 用于网络请求与文件 IO 的线程
+    public ThreadFactory io() {
+        return io;
+    }
+
+    // 用于哈希计算与 zip 检查的线程
+    public ThreadFactory cpu() {
+        return cpu;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // Java 21 之前没有虚拟线程, 通过反射创建以保持 Java 16 兼容
+    private static ThreadFactory newVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "AUP-VT-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) { // 低版本 Java 或未启用预览功能
+            return null;
+        }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
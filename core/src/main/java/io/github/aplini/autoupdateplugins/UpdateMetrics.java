@@ -0,0 +1,171 @@
+package io.github.aplini.autoupdateplugins;
+
+import okhttp3.Cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 在多轮更新之间累计的计数器, 以 Prometheus 文本格式输出
+public final class UpdateMetrics {
+
+    // 网络请求耗时的分桶上限 (秒)
+    private static final double[] BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    private static final class Latency {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sumNanos = new AtomicLong();
+
+        void observe(long nanos) {
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets.incrementAndGet(i);
+                }
+            }
+            count.incrementAndGet();
+            sumNanos.addAndGet(nanos);
+        }
+    }
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong success = new AtomicLong();
+    private final AtomicLong fail = new AtomicLong();
+    private final AtomicLong retryWaitSeconds = new AtomicLong();
+    private final AtomicLong rateLimitWaitSeconds = new AtomicLong();
+    private final AtomicLong bandwidthWaitNanos = new AtomicLong();
+    private final AtomicLong verifyThrottled = new AtomicLong();
+    private final AtomicLong verifyThrottleNanos = new AtomicLong();
+    private volatile long lastRunTime = 0;
+    private volatile long lastRunNanos = 0;
+    // 键为 "解析器\0请求类型"
+    private final Map<String, Latency> latency = new ConcurrentHashMap<>();
+
+    // 一轮更新结束时累加 updatePlugins 中的计数器
+    public void recordRun(int success, int fail, int requests, long bytes, long nanos) {
+        runs.incrementAndGet();
+        this.success.addAndGet(success);
+        this.fail.addAndGet(fail);
+        this.requests.addAndGet(requests);
+        this.bytes.addAndGet(bytes);
+        lastRunTime = System.currentTimeMillis() / 1000;
+        lastRunNanos = nanos;
+    }
+
+    // 一次网络请求的耗时, resolver 为解析器名称, type 为 reqApi 或 reqDownload
+    public void observeRequest(String resolver, String type, long nanos) {
+        latency.computeIfAbsent(resolver + "\0" + type, k -> new Latency()).observe(nanos);
+    }
+
+    // 请求失败后等待重试的时间
+    public void addRetryWait(long seconds) {
+        retryWaitSeconds.addAndGet(seconds);
+    }
+
+    // 上游返回 429 后等待重试的时间, 同时计入 addRetryWait
+    public void addRateLimitWait(long seconds) {
+        rateLimitWaitSeconds.addAndGet(seconds);
+    }
+
+    // 下载因限速而等待的时间
+    public void addBandwidthWait(long nanos) {
+        bandwidthWaitNanos.addAndGet(nanos);
+    }
+
+    // 校验阶段因服务器卡顿而降速的任务数量与等待时间
+    public void addVerifyThrottle(int count, long nanos) {
+        verifyThrottled.addAndGet(count);
+        verifyThrottleNanos.addAndGet(nanos);
+    }
+
+    public String render(UpdateStats stats) {
+        return render(stats, null);
+    }
+
+    // cache 为 API 请求使用的磁盘缓存, 未启用时为 null. 缓存的计数在重载配置后重新开始
+    public String render(UpdateStats stats, Cache cache) {
+        StringBuilder sb = new StringBuilder();
+        counter(sb, "aup_runs_total", "Completed update runs", runs.get());
+        counter(sb, "aup_requests_total", "HTTP requests made", requests.get());
+        counter(sb, "aup_downloaded_bytes_total", "Bytes downloaded", bytes.get());
+        counter(sb, "aup_updates_total", "Files updated", success.get());
+        counter(sb, "aup_failures_total", "Entries that failed to update", fail.get());
+        counter(sb, "aup_retry_wait_seconds_total", "Seconds spent waiting before retrying a request", retryWaitSeconds.get());
+        counter(sb, "aup_rate_limit_wait_seconds_total", "Seconds spent waiting before retrying a request rejected with HTTP 429", rateLimitWaitSeconds.get());
+        if (cache != null) {
+            counter(sb, "aup_api_cache_requests_total", "API requests that went through the response cache", cache.requestCount());
+            counter(sb, "aup_api_cache_hits_total", "API requests served or revalidated from the response cache", cache.hitCount());
+        }
+        counter(sb, "aup_bandwidth_wait_seconds_total", "Seconds downloads spent waiting for the bandwidth limit", bandwidthWaitNanos.get() / 1e9);
+        counter(sb, "aup_verify_throttled_total", "Verification tasks slowed down because the server was behind", verifyThrottled.get());
+        counter(sb, "aup_verify_throttle_wait_seconds_total", "Seconds verification tasks waited for the server to catch up", verifyThrottleNanos.get() / 1e9);
+        gauge(sb, "aup_last_run_timestamp_seconds", "Time the last run finished", lastRunTime);
+        gauge(sb, "aup_last_run_duration_seconds", "Duration of the last run", lastRunNanos / 1e9);
+
+        sb.append("# HELP aup_request_duration_seconds HTTP request latency by resolver\n");
+        sb.append("# TYPE aup_request_duration_seconds histogram\n");
+        for (Map.Entry<String, Latency> e : new TreeMap<>(latency).entrySet()) {
+            String[] key = e.getKey().split("\0", 2);
+            String labels = "resolver=\"" + escape(key[0]) + "\",type=\"" + escape(key[1]) + "\"";
+            Latency l = e.getValue();
+            for (int i = 0; i < BUCKETS.length; i++) {
+                sb.append("aup_request_duration_seconds_bucket{").append(labels).append(",le=\"").append(BUCKETS[i]).append("\"} ").append(l.buckets.get(i)).append('\n');
+            }
+            sb.append("aup_request_duration_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(l.count.get()).append('\n');
+            sb.append("aup_request_duration_seconds_sum{").append(labels).append("} ").append(l.sumNanos.get() / 1e9).append('\n');
+            sb.append("aup_request_duration_seconds_count{").append(labels).append("} ").append(l.count.get()).append('\n');
+        }
+
+        // 每个项目的数据来自 UpdateStats
+        sb.append("# HELP aup_stage_duration_seconds Stage duration per entry over the recent runs\n");
+        sb.append("# TYPE aup_stage_duration_seconds summary\n");
+        StringBuilder downloaded = family("aup_entry_downloaded_bytes_total", "Bytes downloaded per entry", "counter");
+        StringBuilder retries = family("aup_entry_retries_total", "Request retries per entry", "counter");
+        StringBuilder cacheHits = family("aup_entry_cache_hits_total", "Checks that found the entry already up to date", "counter");
+        StringBuilder checks = family("aup_entry_checks_total", "Update checks per entry", "counter");
+        StringBuilder lastSuccess = family("aup_entry_last_success_timestamp_seconds", "Time the entry last finished without errors", "gauge");
+        for (UpdateStats.Entry entry : stats.all()) {
+            String name = "{entry=\"" + escape(entry.getName()) + "\"} ";
+            for (Map.Entry<String, UpdateStats.Histogram> st : entry.getStages().entrySet()) {
+                String labels = "entry=\"" + escape(entry.getName()) + "\",stage=\"" + escape(st.getKey()) + "\"";
+                UpdateStats.Histogram h = st.getValue();
+                for (double q : new double[]{0.5, 0.95, 1}) {
+                    sb.append("aup_stage_duration_seconds{").append(labels).append(",quantile=\"").append(q).append("\"} ").append(h.percentile(q) / 1e9).append('\n');
+                }
+                sb.append("aup_stage_duration_seconds_sum{").append(labels).append("} ").append(h.getTotal() / 1e9).append('\n');
+                sb.append("aup_stage_duration_seconds_count{").append(labels).append("} ").append(h.getRecords()).append('\n');
+            }
+            UpdateStats.Histogram check = entry.getStage("check");
+            downloaded.append("aup_entry_downloaded_bytes_total").append(name).append(entry.getBytes()).append('\n');
+            retries.append("aup_entry_retries_total").append(name).append(entry.getRetries()).append('\n');
+            cacheHits.append("aup_entry_cache_hits_total").append(name).append(entry.getCacheHits()).append('\n');
+            checks.append("aup_entry_checks_total").append(name).append(check == null ? 0 : check.getRecords()).append('\n');
+            lastSuccess.append("aup_entry_last_success_timestamp_seconds").append(name).append(entry.getLastSuccess()).append('\n');
+        }
+        sb.append(downloaded).append(retries).append(cacheHits).append(checks).append(lastSuccess);
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, Object value) {
+        sb.append(family(name, help, "counter")).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, Object value) {
+        sb.append(family(name, help, "gauge")).append(name).append(' ').append(value).append('\n');
+    }
+
+    // 一组指标的 HELP 与 TYPE 行
+    private static StringBuilder family(String name, String help, String type) {
+        return new StringBuilder("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.aplini.autoupdateplugins;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 每个项目在每个阶段的耗时, 以及下载量, 重试次数与缓存命中次数
+// 耗时只保留最近的若干次记录, 用于在多轮更新之间比较
+public final class UpdateStats {
+
+    // 保留最近 size 个样本, 用于计算分位数
+    public static final class Histogram {
+        private final long[] samples;
+        private int next = 0;
+        private int count = 0;
+        private long total = 0;     // 所有记录的累计值, 不受窗口大小影响
+        private long records = 0;
+
+        Histogram(int size) {
+            this.samples = new long[Math.max(1, size)];
+        }
+
+        synchronized void add(long value) {
+            samples[next] = value;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            total += value;
+            records++;
+        }
+
+        public synchronized long getRecords() {
+            return records;
+        }
+
+        public synchronized long getTotal() {
+            return total;
+        }
+
+        // 窗口内的分位数, p 为 0 ~ 1
+        public synchronized long percentile(double p) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.round(p * (count - 1)))];
+        }
+
+        public long max() {
+            return percentile(1);
+        }
+    }
+
+    public static final class Entry {
+        private final String name;
+        private final int window;
+        private final Map<String, Histogram> stages = new LinkedHashMap<>();
+        private long bytes = 0;
+        private long retries = 0;
+        private long cacheHits = 0;
+        private long lastSuccess = 0;   // 最后一次成功完成检查的时间 (秒)
+
+        Entry(String name, int window) {
+            this.name = name;
+            this.window = window;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        synchronized void record(String stage, long nanos) {
+            stages.computeIfAbsent(stage, k -> new Histogram(window)).add(nanos);
+        }
+
+        public synchronized Map<String, Histogram> getStages() {
+            return new LinkedHashMap<>(stages);
+        }
+
+        public synchronized Histogram getStage(String stage) {
+            return stages.get(stage);
+        }
+
+        public synchronized long getBytes() {
+            return bytes;
+        }
+
+        public synchronized long getRetries() {
+            return retries;
+        }
+
+        public synchronized long getCacheHits() {
+            return cacheHits;
+        }
+
+        public synchronized long getLastSuccess() {
+            return lastSuccess;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int window;
+
+    public UpdateStats(int window) {
+        this.window = Math.max(1, window);
+    }
+
+    public Entry get(String name) {
+        return entries.computeIfAbsent(name, k -> new Entry(k, window));
+    }
+
+    // 记录一个阶段的耗时 (纳秒)
+    public void record(String name, String stage, long nanos) {
+        get(name).record(stage, nanos);
+    }
+
+    public void addBytes(String name, long bytes) {
+        Entry e = get(name);
+        synchronized (e) {
+            e.bytes += bytes;
+        }
+    }
+
+    public void addRetry(String name) {
+        Entry e = get(name);
+        synchronized (e) {
+            e.retries++;
+        }
+    }
+
+    public void addCacheHit(String name) {
+        Entry e = get(name);
+        synchronized (e) {
+            e.cacheHits++;
+        }
+    }
+
+    // 项目已是最新版本或已完成更新
+    public void markSuccess(String name) {
+        Entry e = get(name);
+        synchronized (e) {
+            e.lastSuccess = System.currentTimeMillis() / 1000;
+        }
+    }
+
+    public List<Entry> all() {
+        return new ArrayList<>(entries.values());
+    }
+
+    // 查找项目, 先精确匹配, 再忽略大小写部分匹配
+    public Entry find(String name) {
+        Entry e = entries.get(name);
+        if (e != null) return e;
+        for (Entry li : entries.values()) {
+            if (li.name.toLowerCase().contains(name.toLowerCase())) {
+                return li;
+            }
+        }
+        return null;
+    }
+
+    // 按指定阶段的 p95 耗时从高到低排序
+    public List<Entry> slowest(String stage) {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort((a, b) -> Long.compare(p95(b, stage), p95(a, stage)));
+        return list;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static long p95(Entry e, String stage) {
+        Histogram h = e.getStage(stage);
+        return h == null ? 0 : h.percentile(0.95);
+    }
+}
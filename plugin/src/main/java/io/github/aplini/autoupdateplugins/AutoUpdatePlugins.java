@@ -0,0 +1,175 @@
+package io.github.aplini.autoupdateplugins;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.ServerLoadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+
+// Bukkit 适配器: 更新过程在 UpdateEngine 中, 这里只负责配置文件, 日志, 指令与事件
+// 更新始终在插件自己的线程中运行, 不使用服务器的调度器, 因此不会占用 Folia 的区域线程
+public final class AutoUpdatePlugins extends JavaPlugin implements Listener, CommandExecutor, TabExecutor, Platform {
+
+    // 是否运行在 Folia 中, Folia 中只能在玩家所在区域的线程中访问玩家, 在全局区域的线程中访问控制台
+    static final boolean FOLIA = isFolia();
+
+    final UpdateEngine engine = new UpdateEngine(this);
+
+    String ServerVersion = Bukkit.getBukkitVersion().split("-")[0];
+
+    @Override
+    public void onEnable() {
+        saveDefaultConfig();
+        getServer().getPluginManager().registerEvents(this, this);
+        Objects.requireNonNull(getCommand("aup")).setExecutor(this);
+
+        // bStats
+        Metrics metrics = new Metrics(this, 20629);
+        metrics.addCustomChart(new Metrics.SingleLineChart("Plugins", () -> ((List<?>) Objects.requireNonNull(getConfig().get("list"))).size()));
+
+        // 导出语言文件, 读取配置与更新记录在异步线程中完成, 计时器会等待它完成后再启动
+        engine.enableAsync();
+    }
+
+
+    @Override
+    public void onDisable() {
+        // 只在服务器关闭时运行关闭前更新, 单独停用插件时不运行
+        if(Bukkit.isStopping()){
+            engine.shutdownUpdate();
+        }
+        engine.shutdown();
+    }
+
+
+    @EventHandler // 服务器启动完成事件
+    public void onServerLoad(ServerLoadEvent event) {
+        // 异步
+        CompletableFuture.runAsync(engine::start);
+    }
+
+    @Override // 指令补全
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String s, @NotNull String[] args) {
+        return engine.complete(args);
+    }
+    @Override // 运行指令
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String s, @NotNull String[] args) {
+        return engine.command(args, new Platform.Sender() {
+            public void sendMessage(String text) {
+                send(sender, text);
+            }
+            public boolean isPlayer() {
+                return sender instanceof Player;
+            }
+        });
+    }
+
+
+    @Override // 导出不同语言的配置文件, 然后加载配置
+    public void reloadConfig() {
+        List<String> locales = List.of("config_en.yml");
+        engine.getPath("./plugins/AutoUpdatePlugins/Locales");
+        for(String li : locales){
+            File file = new File("./plugins/AutoUpdatePlugins/Locales/"+ li);
+            if(file.exists()){
+                continue;
+            }
+            try (InputStream in = Objects.requireNonNull(getResource("Locales/"+ li))) {
+                Files.copy(in, file.toPath());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        super.reloadConfig();
+    }
+
+    @Override
+    public Object get(String path) {
+        return getConfig().get(path);
+    }
+
+    @Override
+    public Path dataFolder() {
+        return getDataFolder().toPath();
+    }
+
+    @Override
+    public String serverVersion() {
+        return ServerVersion;
+    }
+
+    @Override
+    public void info(String text) {
+        getLogger().info(text);
+    }
+
+    @Override
+    public void warn(String text) {
+        getLogger().warning(text);
+    }
+
+    @Override // 控制台消息支持颜色代码
+    public void console(String text) {
+        send(Bukkit.getConsoleSender(), text);
+    }
+
+    @Override
+    public int onlinePlayers() {
+        return Bukkit.getOnlinePlayers().size();
+    }
+
+    @Override // Paper 提供最近 100 tick 的平均耗时, Folia 中不支持
+    public double mspt() {
+        try {
+            return Bukkit.getAverageTickTime();
+        } catch (UnsupportedOperationException | NoSuchMethodError e) {
+            return -1;
+        }
+    }
+
+    // 发送消息, 更新线程中的消息在 Folia 中交给玩家或全局区域的调度器发送
+    void send(CommandSender sender, String text) {
+        // 插件停用后不能再使用调度器
+        if(!FOLIA || !isEnabled()){
+            sender.sendMessage(text);
+            return;
+        }
+        if(sender instanceof Player player){
+            if(Bukkit.isOwnedByCurrentRegion(player)){
+                player.sendMessage(text);
+            }else{
+                // 玩家已离线时不再发送
+                player.getScheduler().run(this, task -> player.sendMessage(text), null);
+            }
+        }else if(Bukkit.isGlobalTickThread()){
+            sender.sendMessage(text);
+        }else{
+            Bukkit.getGlobalRegionScheduler().execute(this, () -> sender.sendMessage(text));
+        }
+    }
+
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
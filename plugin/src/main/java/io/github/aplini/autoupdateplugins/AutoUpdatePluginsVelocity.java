@@ -0,0 +1,159 @@
+package io.github.aplini.autoupdateplugins;
+
+import com.google.inject.Inject;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyPreShutdownEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.plugin.Plugin;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.slf4j.Logger;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Velocity 适配器: 与 Bukkit 使用同一个 UpdateEngine, 这里只负责配置文件, 日志, 指令与后端服务器列表
+@Plugin(id = "autoupdateplugins", name = "AutoUpdatePlugins", version = "${project.version}")
+public class AutoUpdatePluginsVelocity implements Platform {
+    private final ProxyServer proxy;
+    private final Logger logger;
+    private final UpdateEngine engine = new UpdateEngine(this);
+
+    private final Path pluginDir = Path.of("./plugins/AutoUpdatePlugins");
+    private volatile Map<?, ?> config = new LinkedHashMap<>();
+
+    @Inject
+    public AutoUpdatePluginsVelocity(ProxyServer proxy, Logger logger) {
+        this.proxy = proxy;
+        this.logger = logger;
+    }
+
+    @Subscribe
+    public void onInit(ProxyInitializeEvent event) {
+        registerCommands();
+        // 在异步线程中加载配置与更新记录, 完成后启动计时器 (失败时由 start() 输出原因)
+        engine.enableAsync().whenComplete((v, e) -> engine.start());
+    }
+
+    @Subscribe // 代理开始关闭, 此时仍可以访问网络
+    public void onPreShutdown(ProxyPreShutdownEvent event) {
+        engine.shutdownUpdate();
+    }
+
+    @Subscribe
+    public void onShutdown(ProxyShutdownEvent event) {
+        engine.shutdown();
+    }
+
+    private void registerCommands() {
+        // 使用 Brigadier 注册 /aup 命令, 参数交给 UpdateEngine 处理
+        LiteralArgumentBuilder<CommandSource> literal = LiteralArgumentBuilder.<CommandSource>literal("aup")
+                .executes(ctx -> {
+                    engine.command(new String[0], sender(ctx.getSource()));
+                    return 1;
+                })
+                .then(RequiredArgumentBuilder.<CommandSource, String>argument("args", StringArgumentType.greedyString())
+                        .executes(ctx -> {
+                            String args = StringArgumentType.getString(ctx, "args").trim();
+                            engine.command(args.isEmpty() ? new String[0] : args.split("\\s+"), sender(ctx.getSource()));
+                            return 1;
+                        }));
+        var meta = proxy.getCommandManager().metaBuilder("aup").build();
+        proxy.getCommandManager().register(meta, new BrigadierCommand(literal.build()));
+    }
+
+    private static Platform.Sender sender(CommandSource source) {
+        return new Platform.Sender() {
+            public void sendMessage(String text) {
+                source.sendPlainMessage(text);
+            }
+            public boolean isPlayer() {
+                return source instanceof Player;
+            }
+        };
+    }
+
+    @Override // 导出默认配置文件 (如不存在), 然后使用 SnakeYAML 读取
+    public void reloadConfig() {
+        try {
+            Path localesDir = Files.createDirectories(pluginDir.resolve("Locales"));
+            exportIfMissing(pluginDir.resolve("config.yml"), "/config.yml");
+            exportIfMissing(localesDir.resolve("config_en.yml"), "/Locales/config_en.yml");
+            Object data = new Yaml().load(Files.readString(pluginDir.resolve("config.yml"), StandardCharsets.UTF_8));
+            config = data instanceof Map<?, ?> map ? map : new LinkedHashMap<>();
+        } catch (Exception e) {
+            logger.warn("加载配置失败: {}", e.getMessage());
+            config = new LinkedHashMap<>();
+        }
+    }
+
+    private void exportIfMissing(Path target, String resourcePath) {
+        try {
+            if (Files.exists(target))
+                return;
+            try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
+                if (in == null)
+                    return;
+                Files.copy(in, target);
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    @Override
+    public Object get(String path) {
+        return Config.lookup(config, path);
+    }
+
+    @Override
+    public Path dataFolder() {
+        return pluginDir;
+    }
+
+    @Override
+    public String serverVersion() {
+        return proxy.getVersion() != null ? proxy.getVersion().getVersion() : "";
+    }
+
+    @Override
+    public void info(String text) {
+        logger.info(text);
+    }
+
+    @Override
+    public void warn(String text) {
+        logger.warn(text);
+    }
+
+    @Override // 控制台不显示颜色代码
+    public void console(String text) {
+        logger.info(text.replaceAll("§[0-9a-fk-or]", ""));
+    }
+
+    @Override
+    public int onlinePlayers() {
+        return proxy.getPlayerCount();
+    }
+
+    @Override // 推送模式: 代理中注册的所有后端服务器
+    public Map<String, InetSocketAddress> backends() {
+        Map<String, InetSocketAddress> backends = new LinkedHashMap<>();
+        for (RegisteredServer server : proxy.getAllServers()) {
+            backends.put(server.getServerInfo().getName(), server.getServerInfo().getAddress());
+        }
+        return backends;
+    }
+}
@@ -102,7 +102,14 @@ public class Metrics {
                         enabled,
                         this::appendPlatformData,
                         this::appendServiceData,
-                        submitDataTask -> Bukkit.getScheduler().runTask(plugin, submitDataTask),
+                        // Folia 不支持 BukkitScheduler
+                        submitDataTask -> {
+                            if (AutoUpdatePlugins.FOLIA) {
+                                Bukkit.getGlobalRegionScheduler().execute(plugin, submitDataTask);
+                            } else {
+                                Bukkit.getScheduler().runTask(plugin, submitDataTask);
+                            }
+                        },
                         plugin::isEnabled,
                         (message, error) -> this.plugin.getLogger().log(Level.WARNING, message, error),
                         (message) -> this.plugin.getLogger().log(Level.INFO, message),